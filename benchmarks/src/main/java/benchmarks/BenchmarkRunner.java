@@ -0,0 +1,55 @@
+package benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks once per requested thread count and writes each run's
+ * results as JSON to <out>/jmh-threads-<n>.json.
+ * Options: --threads=1,2,4 (default 1) and --out=<dir> (default "jmh-results");
+ * every other argument is passed to JMH, e.g. a benchmark regex or -p size=1024.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        int[] threadCounts={1};
+        Path out=Path.of("jmh-results");
+        List<String> jmhArgs=new ArrayList<>();
+        for(String arg: args){
+            if(arg.startsWith("--threads=")){
+                String[] counts=arg.substring("--threads=".length()).split(",");
+                threadCounts=new int[counts.length];
+                for(int i=0; i<counts.length; i++)
+                    threadCounts[i]=Integer.parseInt(counts[i].trim());
+            }else if(arg.startsWith("--out=")){
+                out=Path.of(arg.substring("--out=".length()));
+            }else{
+                jmhArgs.add(arg);
+            }
+        }
+        Files.createDirectories(out);
+        CommandLineOptions cli=new CommandLineOptions(jmhArgs.toArray(new String[0]));
+        for(int threads: threadCounts){
+            if(threads<=0)
+                throw new IllegalArgumentException("thread counts must be positive");
+            Options options=new OptionsBuilder()
+                    .parent(cli)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(out.resolve("jmh-threads-"+threads+".json").toString())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
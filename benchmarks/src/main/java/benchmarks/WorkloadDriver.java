@@ -0,0 +1,135 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import parser.*;
+import scheduling.TiredExecutor;
+import spl.lae.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs input files end to end the way Main does (parse, compute, write) and reports
+ * per-stage times, peak heap and GFLOP/s. All files share one engine on one warm
+ * executor, started before and shut down after the measurements, so compute time
+ * covers engine.run alone. FLOPs are the ShapeInference estimate the engine counts.
+ *
+ * Usage: WorkloadDriver [--threads=N] [--repeat=N] [--results=<file.json>] <input>...
+ * Each file runs --repeat times (default 3) and the fastest compute is reported.
+ * With --results, one JSON object per file is written for comparison between builds.
+ */
+public class WorkloadDriver {
+
+    /** Measurements of one file; times are in nanoseconds. */
+    public static class Result {
+        public final String input;
+        public long parseTime;
+        public long computeTime = Long.MAX_VALUE;
+        public long writeTime;
+        public long flops;
+        public long peakHeapBytes;
+        Result(String input) {
+            this.input=input;
+        }
+        public double gflops() {
+            return computeTime==0 ? 0 : (double) flops/computeTime;
+        }
+        ObjectNode toJson(ObjectMapper mapper) {
+            ObjectNode json=mapper.createObjectNode();
+            json.put("input", input);
+            json.put("parseMs", parseTime/1e6);
+            json.put("computeMs", computeTime/1e6);
+            json.put("writeMs", writeTime/1e6);
+            json.put("flops", flops);
+            json.put("gflops", gflops());
+            json.put("peakHeapBytes", peakHeapBytes);
+            return json;
+        }
+    }
+
+    //@PRE: engine is persistent and open & repeat>0
+    public static Result run(String input, LinearAlgebraEngine engine, int repeat) throws Exception {
+        Result result=new Result(input);
+        Path output=Files.createTempFile("workload-", ".json");
+        try{
+            for(int r=0; r<repeat; r++){
+                System.gc();
+                resetPeakHeap();
+                long start=System.nanoTime();
+                ComputationNode root=new InputParser().parse(input);
+                long flopsBefore=engine.getFlopsExecuted();
+                long parsed=System.nanoTime();
+                double[][] matrix=engine.run(root).getMatrix();
+                long computed=System.nanoTime();
+                OutputWriter.write(matrix, output.toString());
+                long written=System.nanoTime();
+                if(computed-parsed<result.computeTime){
+                    result.parseTime=parsed-start;
+                    result.computeTime=computed-parsed;
+                    result.writeTime=written-computed;
+                }
+                result.flops=engine.getFlopsExecuted()-flopsBefore;
+                result.peakHeapBytes=Math.max(result.peakHeapBytes, peakHeap());
+            }
+        }finally{
+            Files.deleteIfExists(output);
+        }
+        return result;
+    }
+
+    private static void resetPeakHeap() {
+        for(MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+            if(pool.getType()==MemoryType.HEAP)
+                pool.resetPeakUsage();
+    }
+
+    // Sum of per-pool peaks, an upper bound on the true peak heap use.
+    private static long peakHeap() {
+        long peak=0;
+        for(MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+            if(pool.getType()==MemoryType.HEAP)
+                peak+=pool.getPeakUsage().getUsed();
+        return peak;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads=Runtime.getRuntime().availableProcessors();
+        int repeat=3;
+        Path resultsFile=null;
+        List<String> inputs=new ArrayList<>();
+        for(String arg: args){
+            if(arg.startsWith("--threads=")) threads=Integer.parseInt(arg.substring("--threads=".length()));
+            else if(arg.startsWith("--repeat=")) repeat=Integer.parseInt(arg.substring("--repeat=".length()));
+            else if(arg.startsWith("--results=")) resultsFile=Path.of(arg.substring("--results=".length()));
+            else inputs.add(arg);
+        }
+        if(inputs.isEmpty()||threads<=0||repeat<=0)
+            throw new IllegalArgumentException("Usage: WorkloadDriver [--threads=N] [--repeat=N] [--results=<file>] <input>...");
+        ObjectMapper mapper=new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ArrayNode json=mapper.createArrayNode();
+        System.out.printf("%-40s %10s %12s %10s %14s %10s %12s%n",
+                "input", "parse ms", "compute ms", "write ms", "flops", "GFLOP/s", "peak heap MB");
+        TiredExecutor executor=new TiredExecutor(threads);
+        try(LinearAlgebraEngine engine=new LinearAlgebraEngine(executor)){
+            for(String input: inputs){
+                Result r=run(input, engine, repeat);
+                System.out.printf("%-40s %10.3f %12.3f %10.3f %14d %10.3f %12.1f%n", Path.of(input).getFileName(),
+                        r.parseTime/1e6, r.computeTime/1e6, r.writeTime/1e6, r.flops, r.gflops(), r.peakHeapBytes/1048576.0);
+                json.add(r.toJson(mapper));
+            }
+        }finally{
+            executor.shutdown();
+        }
+        if(resultsFile!=null)
+            mapper.writeValue(resultsFile.toFile(), json);
+    }
+}
@@ -0,0 +1,174 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded generator of random expression trees in the InputParser JSON format.
+ * The same options and seed always produce the same files.
+ *
+ * Options (defaults in brackets):
+ *   --seed=N [1]          --count=N files [1]       --out=<dir> [workloads]
+ *   --depth=N [3]         operator levels above the leaves
+ *   --fanout=N [2]        operands of ADD and MULTIPLY nodes
+ *   --ops=op:w,... [+:3,*:3,-:1,T:1,^:1]  operator mix by weight; "^" is only used on square nodes
+ *   --rows=N [64] --cols=N [64]  shape of the result
+ *   --inner=N [64]        inner dimension of generated products
+ *   --sparsity=F [0]      fraction of leaf entries that are zero
+ */
+public class WorkloadGenerator {
+
+    private final Random random;
+    private final int depth;
+    private final int fanout;
+    private final int inner;
+    private final double sparsity;
+    private final List<String> operators = new ArrayList<>();
+    private final List<Integer> weights = new ArrayList<>();
+    private int totalWeight = 0;
+
+    public WorkloadGenerator(long seed, int depth, int fanout, int inner, double sparsity, String ops) {
+        if(depth<0||fanout<2||inner<=0||sparsity<0||sparsity>1)
+            throw new IllegalArgumentException("Invalid generator settings");
+        this.random=new Random(seed);
+        this.depth=depth;
+        this.fanout=fanout;
+        this.inner=inner;
+        this.sparsity=sparsity;
+        for(String entry: ops.split(",")){
+            int colon=entry.lastIndexOf(':');
+            String op=entry.substring(0, colon);
+            int weight=Integer.parseInt(entry.substring(colon+1));
+            if(!List.of("+", "*", "-", "T", "^").contains(op)||weight<0)
+                throw new IllegalArgumentException("Invalid operator weight: "+entry);
+            operators.add(op);
+            weights.add(weight);
+            totalWeight+=weight;
+        }
+        if(totalWeight==0)
+            throw new IllegalArgumentException("At least one operator needs a positive weight");
+    }
+
+    //@POST: writes one expression producing a rows x cols matrix to out
+    public void write(int rows, int cols, BufferedWriter out) throws IOException {
+        writeNode(depth, rows, cols, out);
+        out.newLine();
+    }
+
+    private void writeNode(int level, int rows, int cols, BufferedWriter out) throws IOException {
+        if(level==0){
+            writeMatrix(rows, cols, out);
+            return;
+        }
+        String op=pickOperator(rows==cols);
+        if(op==null){
+            writeMatrix(rows, cols, out);
+            return;
+        }
+        out.write("{\"operator\": \""+op+"\"");
+        if(op.equals("^"))
+            out.write(", \"exponent\": "+(2+random.nextInt(3)));
+        out.write(", \"operands\": [");
+        switch (op) {
+            case "+":
+                for(int i=0; i<fanout; i++){
+                    if(i>0)
+                        out.write(", ");
+                    writeNode(level-1, rows, cols, out);
+                }
+                break;
+            case "*": {
+                int left=rows;
+                for(int i=0; i<fanout; i++){
+                    if(i>0)
+                        out.write(", ");
+                    int right=i==fanout-1 ? cols : inner;
+                    writeNode(level-1, left, right, out);
+                    left=right;
+                }
+                break;
+            }
+            case "T":
+                writeNode(level-1, cols, rows, out);
+                break;
+            default: // "-" and "^"
+                writeNode(level-1, rows, cols, out);
+        }
+        out.write("]}");
+    }
+
+    // Returns null if no operator with positive weight fits the node.
+    private String pickOperator(boolean square) {
+        int available=0;
+        for(int i=0; i<operators.size(); i++)
+            if(square||!operators.get(i).equals("^"))
+                available+=weights.get(i);
+        if(available==0)
+            return null;
+        int pick=random.nextInt(available);
+        for(int i=0; i<operators.size(); i++){
+            if(!square&&operators.get(i).equals("^"))
+                continue;
+            pick-=weights.get(i);
+            if(pick<0)
+                return operators.get(i);
+        }
+        throw new IllegalStateException("Operator weights changed");
+    }
+
+    // Values in [-1, 1) keep powers and long products in a comfortable range.
+    private void writeMatrix(int rows, int cols, BufferedWriter out) throws IOException {
+        out.write('[');
+        for(int i=0; i<rows; i++){
+            if(i>0)
+                out.write(", ");
+            out.write('[');
+            for(int j=0; j<cols; j++){
+                if(j>0)
+                    out.write(", ");
+                if(random.nextDouble()<sparsity)
+                    out.write("0");
+                else
+                    out.write(Double.toString(2*random.nextDouble()-1));
+            }
+            out.write(']');
+        }
+        out.write(']');
+    }
+
+    public static void main(String[] args) throws IOException {
+        long seed=1;
+        int count=1, depth=3, fanout=2, rows=64, cols=64, inner=64;
+        double sparsity=0;
+        String ops="+:3,*:3,-:1,T:1,^:1";
+        Path out=Path.of("workloads");
+        for(String arg: args){
+            String value=arg.substring(arg.indexOf('=')+1);
+            if(arg.startsWith("--seed=")) seed=Long.parseLong(value);
+            else if(arg.startsWith("--count=")) count=Integer.parseInt(value);
+            else if(arg.startsWith("--depth=")) depth=Integer.parseInt(value);
+            else if(arg.startsWith("--fanout=")) fanout=Integer.parseInt(value);
+            else if(arg.startsWith("--rows=")) rows=Integer.parseInt(value);
+            else if(arg.startsWith("--cols=")) cols=Integer.parseInt(value);
+            else if(arg.startsWith("--inner=")) inner=Integer.parseInt(value);
+            else if(arg.startsWith("--sparsity=")) sparsity=Double.parseDouble(value);
+            else if(arg.startsWith("--ops=")) ops=value;
+            else if(arg.startsWith("--out=")) out=Path.of(value);
+            else throw new IllegalArgumentException("Unknown option: "+arg);
+        }
+        Files.createDirectories(out);
+        WorkloadGenerator generator=new WorkloadGenerator(seed, depth, fanout, inner, sparsity, ops);
+        for(int i=0; i<count; i++){
+            Path file=out.resolve(String.format("workload-%d-%03d.json", seed, i));
+            try(BufferedWriter writer=Files.newBufferedWriter(file)){
+                generator.write(rows, cols, writer);
+            }
+            System.out.println(file);
+        }
+    }
+}
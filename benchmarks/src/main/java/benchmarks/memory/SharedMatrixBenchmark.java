@@ -0,0 +1,81 @@
+package benchmarks.memory;
+
+import memory.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SharedMatrix load and read paths for square matrices. readRowMajor is measured
+ * on a matrix stored in the given orientation, so the column-major case includes
+ * the transposition back to rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class SharedMatrixBenchmark {
+
+    @State(Scope.Thread)
+    public static class Data {
+        @Param({"64", "512", "2048"})
+        public int size;
+
+        double[][] data;
+
+        @Setup
+        public void setup() {
+            data=randomMatrix(size);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Loaded {
+        @Param({"64", "512", "2048"})
+        public int size;
+        @Param({"ROW_MAJOR", "COLUMN_MAJOR"})
+        public VectorOrientation orientation;
+
+        SharedMatrix matrix;
+
+        @Setup
+        public void setup() {
+            matrix=new SharedMatrix();
+            if(orientation==VectorOrientation.ROW_MAJOR)
+                matrix.loadRowMajor(randomMatrix(size));
+            else
+                matrix.loadColumnMajor(randomMatrix(size));
+        }
+    }
+
+    @Benchmark
+    public SharedMatrix loadRowMajor(Data s) {
+        SharedMatrix m=new SharedMatrix();
+        m.loadRowMajor(s.data);
+        return m;
+    }
+
+    @Benchmark
+    public SharedMatrix loadColumnMajor(Data s) {
+        SharedMatrix m=new SharedMatrix();
+        m.loadColumnMajor(s.data);
+        return m;
+    }
+
+    @Benchmark
+    public void readRowMajor(Loaded s, Blackhole bh) {
+        bh.consume(s.matrix.readRowMajor());
+    }
+
+    static double[][] randomMatrix(int size) {
+        Random random=new Random(size);
+        double[][] m=new double[size][size];
+        for(double[] row: m)
+            for(int j=0; j<row.length; j++)
+                row[j]=random.nextDouble();
+        return m;
+    }
+}
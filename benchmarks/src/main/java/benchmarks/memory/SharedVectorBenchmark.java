@@ -0,0 +1,91 @@
+package benchmarks.memory;
+
+import memory.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SharedVector kernels. With more than one JMH thread all threads share the same
+ * vectors, so the numbers include lock contention.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class SharedVectorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Vectors {
+        @Param({"64", "1024", "16384"})
+        public int size;
+        @Param({"ROW_MAJOR", "COLUMN_MAJOR"})
+        public VectorOrientation orientation;
+
+        SharedVector vector;
+        SharedVector other; // same orientation, for add
+        SharedVector transposed; // opposite orientation, for dot
+
+        @Setup
+        public void setup() {
+            double[] a=randomArray(size, 1);
+            double[] b=randomArray(size, 2);
+            vector=new SharedVector(a, orientation);
+            other=new SharedVector(b, orientation);
+            transposed=new SharedVector(b, orientation==VectorOrientation.ROW_MAJOR
+                    ? VectorOrientation.COLUMN_MAJOR : VectorOrientation.ROW_MAJOR);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Product {
+        @Param({"64", "256", "512"})
+        public int size;
+
+        SharedVector row;
+        SharedMatrix columns;
+
+        // Entries of 1/n keep repeated products bounded, so values never overflow.
+        @Setup
+        public void setup() {
+            row=new SharedVector(randomArray(size, 3), VectorOrientation.ROW_MAJOR);
+            double[][] m=new double[size][size];
+            for(double[] r: m)
+                Arrays.fill(r, 1.0/size);
+            columns=new SharedMatrix();
+            columns.loadColumnMajor(m);
+        }
+    }
+
+    @Benchmark
+    public void add(Vectors s) {
+        s.vector.add(s.other);
+    }
+
+    @Benchmark
+    public void negate(Vectors s) {
+        s.vector.negate();
+    }
+
+    @Benchmark
+    public void dot(Vectors s, Blackhole bh) {
+        bh.consume(s.vector.dot(s.transposed));
+    }
+
+    @Benchmark
+    public void vecMatMul(Product s) {
+        s.row.vecMatMul(s.columns);
+    }
+
+    static double[] randomArray(int size, long seed) {
+        Random random=new Random(seed);
+        double[] a=new double[size];
+        for(int i=0; i<size; i++)
+            a[i]=random.nextDouble();
+        return a;
+    }
+}
@@ -0,0 +1,150 @@
+package benchmarks.scheduling;
+
+import scheduling.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduling overhead of TiredExecutor against ForkJoinPool and ThreadPoolExecutor
+ * baselines of the same size, for empty and tiny tasks.
+ * The *Batch benchmarks submit batchSize tasks and wait for all of them, like one
+ * engine operation does with its row tasks; the "tasks" counter gives tasks/sec.
+ * The *RoundTrip benchmarks submit a single task and wait for it, giving latency.
+ * For TiredExecutor, "fatigueSpreadPermille" is (max - min) / mean worker fatigue
+ * after the last batch, in thousandths: 0 is perfectly fair.
+ */
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class ExecutorBenchmark {
+
+    private static final int TINY_TOKENS = 100; // Blackhole.consumeCPU units, a few hundred ns
+
+    @State(Scope.Benchmark)
+    public static class Pools {
+        @Param({"1", "2", "4", "8"})
+        public int workers;
+        @Param({"EMPTY", "TINY"})
+        public String work;
+        @Param({"64", "1024"})
+        public int batchSize;
+
+        TiredExecutor tired;
+        ForkJoinPool forkJoin;
+        ThreadPoolExecutor threadPool;
+        Runnable task;
+        List<Runnable> batch;
+        List<Callable<Object>> callables;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            tired=new TiredExecutor(workers);
+            forkJoin=new ForkJoinPool(workers);
+            threadPool=new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+            task=work.equals("TINY") ? ()->Blackhole.consumeCPU(TINY_TOKENS) : ()->{};
+            batch=new ArrayList<>();
+            callables=new ArrayList<>();
+            for(int i=0; i<batchSize; i++){
+                batch.add(task);
+                callables.add(Executors.callable(task));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void shutdown() throws InterruptedException {
+            tired.shutdown();
+            forkJoin.shutdown();
+            threadPool.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Tasks {
+        public long tasks;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tasks=0;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Fairness {
+        public long fatigueSpreadPermille;
+
+        void update(TiredExecutor executor) {
+            double[] fatigues=executor.getWorkerFatigues();
+            double min=Double.MAX_VALUE, max=0, sum=0;
+            for(double f: fatigues){
+                min=Math.min(min, f);
+                max=Math.max(max, f);
+                sum+=f;
+            }
+            fatigueSpreadPermille=sum==0 ? 0 : Math.round(1000*(max-min)/(sum/fatigues.length));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void tiredBatch(Pools p, Tasks t, Fairness f) {
+        p.tired.submitAll(p.batch);
+        t.tasks+=p.batchSize;
+        f.update(p.tired);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void forkJoinBatch(Pools p, Tasks t) {
+        p.forkJoin.invokeAll(p.callables);
+        t.tasks+=p.batchSize;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void threadPoolBatch(Pools p, Tasks t) throws InterruptedException {
+        p.threadPool.invokeAll(p.callables);
+        t.tasks+=p.batchSize;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void tiredRoundTrip(Pools p) throws InterruptedException {
+        CountDownLatch done=new CountDownLatch(1);
+        p.tired.submit(()->{
+            p.task.run();
+            done.countDown();
+        });
+        done.await();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void forkJoinRoundTrip(Pools p) {
+        p.forkJoin.submit(p.task).join();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void threadPoolRoundTrip(Pools p) throws InterruptedException, ExecutionException {
+        p.threadPool.submit(p.task).get();
+    }
+}
@@ -0,0 +1,55 @@
+package memory;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock counters shared by the vectors of one or more instrumented SharedMatrix instances.
+ * An acquisition is contended when the lock was held by another thread, or had queued waiters,
+ * just before it was requested; waitNanos is the time spent blocked in contended acquisitions.
+ */
+//@INV: getContendedAcquisitions()<=getAcquisitions() & getWaitNanos()>=0
+public class LockStats {
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    //@POST: one immediate acquisition is counted
+    void acquired() {
+        acquisitions.increment();
+    }
+
+    //@POST: one acquisition that blocked for waitNanos is counted
+    void acquiredAfterWait(long waitNanos) {
+        acquisitions.increment();
+        contended.increment();
+        this.waitNanos.add(waitNanos);
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getContendedAcquisitions() {
+        return contended.sum();
+    }
+
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    //@POST: all counters are 0
+    public void reset() {
+        acquisitions.reset();
+        contended.reset();
+        waitNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        long total=getAcquisitions();
+        long blocked=getContendedAcquisitions();
+        return String.format("acquisitions: %d, contended: %d (%.2f%%), wait: %.3fms",
+                total, blocked, total==0 ? 0.0 : 100.0*blocked/total, getWaitNanos()/1e6);
+    }
+}
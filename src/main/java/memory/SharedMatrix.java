@@ -7,6 +7,7 @@ package memory;
 public class SharedMatrix {
 
     private volatile SharedVector[] vectors = {}; // underlying vectors
+    private volatile LockStats lockStats = null; // given to vectors created by the load methods
     //@PRE: None
     //@POST: length==0
     public SharedMatrix() {
@@ -49,7 +50,7 @@ public class SharedMatrix {
             throw new IllegalArgumentException("Matrix row cant be null");
         if (matrix[i].length != cols) 
             throw new IllegalArgumentException("Matrix must be rectangular");
-        tempVecs[i] = new SharedVector(matrix[i], VectorOrientation.ROW_MAJOR);
+        tempVecs[i] = new SharedVector(matrix[i], VectorOrientation.ROW_MAJOR, lockStats);
         }
         this.vectors = tempVecs;   
     }
@@ -74,7 +75,7 @@ public class SharedMatrix {
             double[] column = new double[rows];
             for (int i = 0; i < rows; i++)
                 column[i] = matrix[i][j];
-        newVectors[j] = new SharedVector(column, VectorOrientation.COLUMN_MAJOR);
+        newVectors[j] = new SharedVector(column, VectorOrientation.COLUMN_MAJOR, lockStats);
         }
         this.vectors = newVectors;
     }
@@ -130,6 +131,14 @@ public class SharedMatrix {
             throw new NullPointerException("Vectors is null");
         return vectors.length;
     }
+    //@POST: vectors loaded from now on count their lock acquisitions in lockStats, null turns counting off
+    public void setLockStats(LockStats lockStats) {
+        this.lockStats=lockStats;
+    }
+
+    public LockStats getLockStats() {
+        return lockStats;
+    }
     //@PRE: vectors!=null
     //@POST: return the Orientation
     public VectorOrientation getOrientation() {
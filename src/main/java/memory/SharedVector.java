@@ -1,7 +1,8 @@
 package memory;
 
 import java.util.ConcurrentModificationException;
-import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 //@INV:vector!=null & orienation!=null & vector.length>=0
 //@INV:all accesses to vector and orientation are protected by the appropriate lock
@@ -10,11 +11,18 @@ public class SharedVector
 
     private double[] vector;
     private VectorOrientation orientation;
-    private ReadWriteLock lock = new java.util.concurrent.locks.ReentrantReadWriteLock();
+    private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LockStats stats; // null unless lock use is instrumented
 
     //@PRE:vector!=null & oriention!=null
     //@POST:this.vector is a deep copy of vector by clone & this.orientation=orientation.
     public SharedVector(double[] vector, VectorOrientation orientation) {
+        this(vector, orientation, null);
+    }
+
+    //@PRE:vector!=null & oriention!=null
+    //@POST:as above, every lock acquisition is counted in stats unless it is null
+    public SharedVector(double[] vector, VectorOrientation orientation, LockStats stats) {
         // TODO: store vector data and its orientation
         if(vector==null)
             throw new NullPointerException("Vector cant be null");
@@ -22,6 +30,7 @@ public class SharedVector
             throw new NullPointerException("Orientation cant be null");
         this.vector=vector.clone();
         this.orientation=orientation;
+        this.stats=stats;
     }
 
     //@PRE: 0 <= index < vector.length
@@ -63,7 +72,11 @@ public class SharedVector
 
     public void writeLock() {
         // TODO: acquire write lock
-        lock.writeLock().lock();
+        if(stats==null){
+            lock.writeLock().lock();
+            return;
+        }
+        acquire(lock.writeLock(), (lock.isWriteLocked() && !lock.isWriteLockedByCurrentThread()) || lock.getReadLockCount()>0 || lock.hasQueuedThreads());
 
     }
 
@@ -74,7 +87,25 @@ public class SharedVector
 
     public void readLock() {
         // TODO: acquire read lock
-        lock.readLock().lock();
+        if(stats==null){
+            lock.readLock().lock();
+            return;
+        }
+        acquire(lock.readLock(), (lock.isWriteLocked() && !lock.isWriteLockedByCurrentThread()) || lock.hasQueuedThreads());
+    }
+
+    // The lock is always taken with lock(), so instrumenting does not change who gets it first.
+    // contended is a snapshot of holders and waiters taken just before: an acquisition racing with a
+    // release may be counted as contended with a near zero wait, or as uncontended after a short wait.
+    private void acquire(Lock l, boolean contended) {
+        if(!contended){
+            l.lock();
+            stats.acquired();
+            return;
+        }
+        long start=System.nanoTime();
+        l.lock();
+        stats.acquiredAfterWait(System.nanoTime()-start);
     }
 
     public void readUnlock() {
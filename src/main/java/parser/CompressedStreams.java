@@ -0,0 +1,140 @@
+package parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opens input and output files, transparently (de)compressing paths ending in ".gz".
+ * Decompression runs on its own thread and feeds the reader through a pipe,
+ * so inflating the file overlaps with parsing instead of preceding it.
+ */
+final class CompressedStreams {
+
+    static final String GZIP_SUFFIX = ".gz";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private CompressedStreams() {}
+
+    static boolean isGzip(String path) {
+        return path.endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * Opens path for reading, returning the decompressed contents of ".gz" files.
+     */
+    static InputStream openInput(String path) throws IOException {
+        if (path == null) {
+            throw new NullPointerException("path is null");
+        }
+        InputStream file = new BufferedInputStream(new FileInputStream(path), BUFFER_SIZE);
+        if (!isGzip(path)) {
+            return file;
+        }
+        try {
+            return new PipedGunzipStream(new GZIPInputStream(file, BUFFER_SIZE), path);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens path for writing, compressing the written bytes if it ends in ".gz".
+     */
+    static OutputStream openOutput(String path) throws IOException {
+        if (path == null) {
+            throw new NullPointerException("path is null");
+        }
+        OutputStream file = new BufferedOutputStream(new FileOutputStream(path), BUFFER_SIZE);
+        if (!isGzip(path)) {
+            return file;
+        }
+        try {
+            return new GZIPOutputStream(file, BUFFER_SIZE);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reading end of a pipe filled by a dedicated decompression thread.
+     * A failure on the decompression side is rethrown to the reader once the pipe drains.
+     */
+    private static final class PipedGunzipStream extends InputStream {
+
+        private final PipedInputStream sink = new PipedInputStream(BUFFER_SIZE);
+        private final Thread decompressor;
+        private volatile IOException failure = null;
+
+        PipedGunzipStream(InputStream source, String path) throws IOException {
+            PipedOutputStream pipe = new PipedOutputStream(sink);
+            decompressor = new Thread(() -> pump(source, pipe), "gunzip-" + path);
+            decompressor.setDaemon(true);
+            decompressor.start();
+        }
+
+        private void pump(InputStream source, PipedOutputStream pipe) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = source; OutputStream out = pipe) {
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = sink.read();
+            if (b == -1) {
+                checkFailure();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = sink.read(b, off, len);
+            if (n == -1) {
+                checkFailure();
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return sink.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            sink.close();
+            decompressor.interrupt();
+        }
+
+        private void checkFailure() throws IOException {
+            try {
+                decompressor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for decompression", e);
+            }
+            IOException e = failure;
+            if (e != null) {
+                throw new IOException("Failed to decompress input: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -7,13 +7,17 @@ public class ComputationNode {
     private ComputationNodeType nodeType;
     private List<ComputationNode> children = null;
     private double[][] matrix = null; // only used for MATRIX nodes
+    private int exponent = 1; // only used for POWER nodes
 
     public ComputationNode(String operatorStr, List<ComputationNode> children) throws IllegalArgumentException {
-        this.nodeType = mapOperator(operatorStr);
-        this.children = children;
+        this(mapOperator(operatorStr), children);
+    }
+
+    public ComputationNode(String operatorStr, List<ComputationNode> children, int exponent) throws IllegalArgumentException {
+        this(mapOperator(operatorStr), children, exponent);
     }
 
-    private ComputationNodeType mapOperator(String operatorStr) throws IllegalArgumentException {
+    private static ComputationNodeType mapOperator(String operatorStr) throws IllegalArgumentException {
         switch (operatorStr) {
             case "+":
                 return ComputationNodeType.ADD;
@@ -23,16 +27,37 @@ public class ComputationNode {
                 return ComputationNodeType.NEGATE;
             case "T":
                 return ComputationNodeType.TRANSPOSE;
+            case "^":
+                return ComputationNodeType.POWER;
+            case "solve":
+                return ComputationNodeType.SOLVE;
+            case "inv":
+                return ComputationNodeType.INVERSE;
             default:
                 throw new IllegalArgumentException("Unknown operator: " + operatorStr);
         }
     }
 
     public ComputationNode(ComputationNodeType nodeType, List<ComputationNode> children) {
+        if (nodeType == ComputationNodeType.POWER) {
+            throw new IllegalArgumentException("POWER requires an exponent");
+        }
         this.nodeType = nodeType;
         this.children = children;
     }
 
+    /**
+     * Creates an operation node carrying an exponent; POWER raises its single operand to it.
+     */
+    public ComputationNode(ComputationNodeType nodeType, List<ComputationNode> children, int exponent) {
+        if (exponent < 0) {
+            throw new IllegalArgumentException("Exponent must be non-negative: " + exponent);
+        }
+        this.nodeType = nodeType;
+        this.children = children;
+        this.exponent = exponent;
+    }
+
     public ComputationNode(double[][] matrix) {
         this.nodeType = ComputationNodeType.MATRIX;
         this.matrix = matrix;
@@ -46,6 +71,10 @@ public class ComputationNode {
         return children;
     }
 
+    public int getExponent() {
+        return exponent;
+    }
+
     /**
      * Recursively finds the first resolvable node in the tree.
      * A resolvable node is defined as a node that is not of type MATRIX,
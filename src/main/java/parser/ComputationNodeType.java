@@ -9,5 +9,8 @@ public enum ComputationNodeType {
     MULTIPLY,
     NEGATE,
     TRANSPOSE,
+    POWER,
+    SOLVE,
+    INVERSE,
     MATRIX,
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package parser;
+
+/**
+ * Checks that a dense result buffer can fit in the maximum heap before it is allocated,
+ * so an oversized matrix is rejected with a clear error instead of an OutOfMemoryError.
+ */
+public final class HeapLimit {
+
+    private HeapLimit() {}
+
+    /**
+     * Throws IllegalArgumentException if a buffer of bufferBytes can never fit in the maximum heap.
+     */
+    public static void requireHeapFor(long bufferBytes) {
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        if (maxHeap != Long.MAX_VALUE && bufferBytes > maxHeap) {
+            throw new IllegalArgumentException("Result needs a buffer of " + bufferBytes + " bytes, more than the " + maxHeap + " byte heap");
+        }
+    }
+}
@@ -4,8 +4,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.text.ParseException;
 import java.util.*;
 
@@ -13,24 +14,53 @@ public class InputParser {
 
     private final ObjectMapper mapper = new ObjectMapper();
 
+    /**
+     * Parses the computation tree stored at inputPath.
+     * Paths ending in ".gz" are decompressed on the fly while being parsed.
+     * Operands given as strings name Matrix Market (.mtx) files, resolved relative to the input file.
+     * The "^" operator takes one operand and a non-negative integer "exponent" field.
+     * "solve" takes A and B and yields X with AX = B, "inv" takes one square operand.
+     */
     public ComputationNode parse(String inputPath) throws ParseException {
-        try {
-            File inputFile = new File(inputPath);
-            JsonNode rootJsonNode = mapper.readTree(inputFile);
-            ComputationNode root = parseJsonNode(rootJsonNode);
+        try (InputStream in = CompressedStreams.openInput(inputPath)) {
+            JsonNode rootJsonNode = mapper.readTree(in);
+            Path baseDir = Path.of(inputPath).toAbsolutePath().getParent();
+            ComputationNode root = parseJsonNode(rootJsonNode, baseDir);
             return root;
         } catch (IOException e) {
             throw new ParseException("Failed to read the input JSON file: " + e.getMessage(), 0);
         }
     }
 
-    private ComputationNode parseJsonNode(JsonNode jsonNode) throws ParseException {
+    /**
+     * Parses a computation tree from an in-memory JSON document.
+     * Matrix Market operands are resolved relative to the working directory.
+     */
+    public ComputationNode parse(byte[] json) throws ParseException {
+        try {
+            JsonNode rootJsonNode = mapper.readTree(json);
+            if (rootJsonNode == null) {
+                throw new ParseException("Empty JSON document.", 0);
+            }
+            return parseJsonNode(rootJsonNode, null);
+        } catch (IOException e) {
+            throw new ParseException("Failed to read the input JSON: " + e.getMessage(), 0);
+        }
+    }
+
+    private ComputationNode parseJsonNode(JsonNode jsonNode, Path baseDir) throws ParseException {
         if (jsonNode.has("operator") && jsonNode.has("operands")) {
             String operatorStr = jsonNode.get("operator").asText();
             ArrayNode operandJsonNodes = (ArrayNode) jsonNode.get("operands");
             List<ComputationNode> operands = new ArrayList<>();
             for (int i = 0; i < operandJsonNodes.size(); i++) {
-                operands.add(parseJsonNode(operandJsonNodes.get(i)));
+                operands.add(parseJsonNode(operandJsonNodes.get(i), baseDir));
+            }
+            if (operatorStr.equals("^")) {
+                return new ComputationNode(operatorStr, operands, parseExponent(jsonNode.get("exponent")));
+            }
+            if (jsonNode.has("exponent")) {
+                throw new ParseException("Only the ^ operator takes an exponent.", 0);
             }
             return new ComputationNode(operatorStr, operands);
         }
@@ -62,7 +92,25 @@ public class InputParser {
                 return new ComputationNode(matrix);
             }
         }
+        else if (jsonNode.isTextual()) {
+            String operandPath = jsonNode.asText();
+            if (!MatrixMarketReader.isMatrixMarket(operandPath)) {
+                throw new ParseException("Unsupported operand file (expected .mtx): " + operandPath, 0);
+            }
+            Path resolved = baseDir == null ? Path.of(operandPath) : baseDir.resolve(operandPath);
+            return new ComputationNode(MatrixMarketReader.read(resolved.toString()));
+        }
         else { throw new ParseException("Invalid node structure: " + jsonNode.toString(), 0); }
     }
 
+    private int parseExponent(JsonNode exponentNode) throws ParseException {
+        if (exponentNode == null) {
+            throw new ParseException("The ^ operator requires an exponent.", 0);
+        }
+        if (!exponentNode.isIntegralNumber() || !exponentNode.canConvertToInt() || exponentNode.asInt() < 0) {
+            throw new ParseException("Exponent must be a non-negative integer: " + exponentNode.toString(), 0);
+        }
+        return exponentNode.asInt();
+    }
+
 }
\ No newline at end of file
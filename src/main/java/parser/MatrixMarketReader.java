@@ -0,0 +1,215 @@
+package parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming reader for Matrix Market (.mtx) files.
+ * Supports the "coordinate" and "array" formats with real, integer or pattern
+ * fields and general, symmetric or skew-symmetric storage.
+ * Entries are written straight into the matrix one line at a time, so the file
+ * is never held in memory as text or as a JSON tree.
+ * Paths ending in ".gz" are decompressed on the fly.
+ */
+public class MatrixMarketReader {
+
+    public static final String EXTENSION = ".mtx";
+    private static final String BANNER = "%%MatrixMarket";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private MatrixMarketReader() {}
+
+    /**
+     * Returns true if path names a Matrix Market file, optionally gzip-compressed.
+     */
+    public static boolean isMatrixMarket(String path) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        return lower.endsWith(EXTENSION) || lower.endsWith(EXTENSION + CompressedStreams.GZIP_SUFFIX);
+    }
+
+    /**
+     * Reads the Matrix Market file at path into a row-major matrix.
+     * The error offset of a thrown ParseException is the offending line number.
+     */
+    public static double[][] read(String path) throws ParseException {
+        try (InputStream in = CompressedStreams.openInput(path)) {
+            return read(new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII)), path);
+        } catch (IOException e) {
+            throw new ParseException("Failed to read Matrix Market file " + path + ": " + e.getMessage(), 0);
+        }
+    }
+
+    private static double[][] read(BufferedReader reader, String path) throws IOException, ParseException {
+        int lineNumber = 1;
+        String header = reader.readLine();
+        if (header == null || !header.startsWith(BANNER)) {
+            throw new ParseException(path + ": missing " + BANNER + " header", lineNumber);
+        }
+        String[] banner = WHITESPACE.split(header.trim().toLowerCase(Locale.ROOT));
+        if (banner.length != 5 || !banner[1].equals("matrix")) {
+            throw new ParseException(path + ": unsupported header: " + header, lineNumber);
+        }
+        boolean coordinate = parseFormat(banner[2], path);
+        boolean pattern = parseField(banner[3], coordinate, path);
+        String symmetry = banner[4];
+        if (!symmetry.equals("general") && !symmetry.equals("symmetric") && !symmetry.equals("skew-symmetric")) {
+            throw new ParseException(path + ": unsupported symmetry: " + symmetry, lineNumber);
+        }
+
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                throw new ParseException(path + ": missing size line", lineNumber);
+            }
+        } while (line.isBlank() || line.startsWith("%"));
+        String[] size = WHITESPACE.split(line.trim());
+        if (size.length != (coordinate ? 3 : 2)) {
+            throw new ParseException(path + ": invalid size line: " + line, lineNumber);
+        }
+        int rows = parseIndex(size[0], path, lineNumber);
+        int cols = parseIndex(size[1], path, lineNumber);
+        if (rows == 0) {
+            throw new ParseException(path + ": empty matrices are not supported", lineNumber);
+        }
+        if (!symmetry.equals("general") && rows != cols) {
+            throw new ParseException(path + ": " + symmetry + " matrix must be square", lineNumber);
+        }
+        long entries = coordinate ? parseCount(size[2], path, lineNumber) : arrayEntries(rows, cols, symmetry);
+        if (entries > (long) rows * cols) {
+            throw new ParseException(path + ": " + entries + " entries declared for a " + rows + "x" + cols + " matrix", lineNumber);
+        }
+        // The matrix is dense, so a small sparse file can declare a size the heap cannot hold.
+        try {
+            HeapLimit.requireHeapFor((long) rows * cols * Double.BYTES);
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(path + ": " + e.getMessage(), lineNumber);
+        }
+
+        double[][] matrix = new double[rows][cols];
+        // Array format lists columns top to bottom; symmetric variants list only the lower triangle.
+        int diagonalOffset = symmetry.equals("skew-symmetric") ? 1 : 0;
+        int arrayRow = symmetry.equals("general") ? 0 : diagonalOffset;
+        int arrayCol = 0;
+        long seen = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("%")) {
+                continue;
+            }
+            if (seen == entries) {
+                throw new ParseException(path + ": more entries than declared", lineNumber);
+            }
+            String[] tokens = WHITESPACE.split(line.trim());
+            int row;
+            int col;
+            double value;
+            if (coordinate) {
+                if (tokens.length != (pattern ? 2 : 3)) {
+                    throw new ParseException(path + ": invalid entry: " + line, lineNumber);
+                }
+                row = parseIndex(tokens[0], path, lineNumber) - 1;
+                col = parseIndex(tokens[1], path, lineNumber) - 1;
+                value = pattern ? 1.0 : parseValue(tokens[2], path, lineNumber);
+            }
+            else {
+                if (tokens.length != 1) {
+                    throw new ParseException(path + ": invalid entry: " + line, lineNumber);
+                }
+                row = arrayRow;
+                col = arrayCol;
+                value = parseValue(tokens[0], path, lineNumber);
+                if (++arrayRow == rows) {
+                    arrayCol++;
+                    arrayRow = symmetry.equals("general") ? 0 : arrayCol + diagonalOffset;
+                }
+            }
+            if (row < 0 || row >= rows || col < 0 || col >= cols) {
+                throw new ParseException(path + ": entry out of bounds: " + line, lineNumber);
+            }
+            matrix[row][col] = value;
+            if (row != col && symmetry.equals("symmetric")) {
+                matrix[col][row] = value;
+            }
+            else if (row != col && symmetry.equals("skew-symmetric")) {
+                matrix[col][row] = -value;
+            }
+            seen++;
+        }
+        if (seen != entries) {
+            throw new ParseException(path + ": expected " + entries + " entries but found " + seen, lineNumber);
+        }
+        return matrix;
+    }
+
+    private static boolean parseFormat(String format, String path) throws ParseException {
+        switch (format) {
+            case "coordinate":
+                return true;
+            case "array":
+                return false;
+            default:
+                throw new ParseException(path + ": unsupported format: " + format, 1);
+        }
+    }
+
+    private static boolean parseField(String field, boolean coordinate, String path) throws ParseException {
+        if (field.equals("real") || field.equals("double") || field.equals("integer")) {
+            return false;
+        }
+        if (field.equals("pattern") && coordinate) {
+            return true;
+        }
+        throw new ParseException(path + ": unsupported field: " + field, 1);
+    }
+
+    private static long arrayEntries(int rows, int cols, String symmetry) {
+        switch (symmetry) {
+            case "general":
+                return (long) rows * cols;
+            case "symmetric":
+                return (long) rows * (rows + 1) / 2;
+            default:
+                return (long) rows * (rows - 1) / 2;
+        }
+    }
+
+    private static int parseIndex(String token, String path, int lineNumber) throws ParseException {
+        try {
+            int value = Integer.parseInt(token);
+            if (value < 0) {
+                throw new ParseException(path + ": negative value: " + token, lineNumber);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new ParseException(path + ": invalid integer: " + token, lineNumber);
+        }
+    }
+
+    private static long parseCount(String token, String path, int lineNumber) throws ParseException {
+        try {
+            long value = Long.parseLong(token);
+            if (value < 0) {
+                throw new ParseException(path + ": negative entry count: " + token, lineNumber);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new ParseException(path + ": invalid integer: " + token, lineNumber);
+        }
+    }
+
+    private static double parseValue(String token, String path, int lineNumber) throws ParseException {
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw new ParseException(path + ": invalid number: " + token, lineNumber);
+        }
+    }
+}
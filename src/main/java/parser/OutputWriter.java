@@ -1,7 +1,7 @@
 package parser;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
@@ -21,14 +21,32 @@ public class OutputWriter {
 
     public OutputWriter() {}
 
+    /**
+     * Writes the result matrix to filePath, gzip-compressing it if the path ends in ".gz".
+     */
     public static void write(double[][] matrix, String filePath) throws IOException {
-        File file = new File(filePath);
-        mapper.writerWithDefaultPrettyPrinter().writeValue(file, new ResultMatrix(matrix));
+        writeValue(new ResultMatrix(matrix), filePath);
     }
 
     public static void write(String error, String filePath) throws IOException {
-        File file = new File(filePath);
-        mapper.writerWithDefaultPrettyPrinter().writeValue(file, new ErrorMessage(error));
+        writeValue(new ErrorMessage(error), filePath);
+    }
+
+    /**
+     * Serializes the result matrix in the same format write() produces.
+     */
+    public static byte[] toBytes(double[][] matrix) throws IOException {
+        return mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(new ResultMatrix(matrix));
+    }
+
+    public static byte[] toBytes(String error) throws IOException {
+        return mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(new ErrorMessage(error));
+    }
+
+    private static void writeValue(Object value, String filePath) throws IOException {
+        try (OutputStream out = CompressedStreams.openOutput(filePath)) {
+            mapper.writerWithDefaultPrettyPrinter().writeValue(out, value);
+        }
     }
 
 }
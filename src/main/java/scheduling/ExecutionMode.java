@@ -0,0 +1,11 @@
+package scheduling;
+/**
+ * Determines where a TiredExecutor runs I/O-bound tasks.
+ * CPU kernels always run on the fixed pool of TiredThreads.
+ * PLATFORM runs I/O tasks on the same pool, VIRTUAL gives every I/O task its own virtual thread
+ * so blocking I/O never holds a worker.
+ */
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL
+}
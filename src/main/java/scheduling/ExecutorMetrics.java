@@ -0,0 +1,15 @@
+package scheduling;
+
+import java.util.List;
+
+/**
+ * Snapshot of a TiredExecutor returned by getMetrics(): per-worker metrics and
+ * executor-wide totals, with latency percentiles merged over all workers.
+ * Times are in nanoseconds. Serializes to JSON as is.
+ */
+public record ExecutorMetrics(ExecutionMode mode, int workerCount, int inFlight, int idleWorkers,
+                              long tasksCompleted, double utilization,
+                              LatencySnapshot queueWait, LatencySnapshot execution,
+                              List<WorkerMetrics> workers,
+                              long ioTasksCompleted, int ioInFlight, long ioTimeUsedNanos) {
+}
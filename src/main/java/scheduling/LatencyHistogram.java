@@ -0,0 +1,91 @@
+package scheduling;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of durations in nanoseconds.
+ * Every power of two is split into 8 buckets, so a reported percentile is
+ * within 12.5% of the recorded value. Recording is lock free and only touches
+ * LongAdder cells, so concurrent recorders do not contend on one counter.
+ */
+//@INV: buckets.length==BUCKETS
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public LatencyHistogram() {
+        for(int i=0; i<BUCKETS; i++)
+            buckets[i]=new LongAdder();
+    }
+
+    //@POST: nanos is counted, negative values count as 0
+    public void record(long nanos) {
+        if(nanos<0)
+            nanos=0;
+        buckets[bucketOf(nanos)].increment();
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    //@POST: returns count, total, p50, p99 and max of the values recorded so far
+    public LatencySnapshot snapshot() {
+        return merge(new LatencyHistogram[]{this});
+    }
+
+    //@PRE: histograms!=null
+    //@POST: returns the snapshot of all values recorded by any of histograms
+    public static LatencySnapshot merge(LatencyHistogram[] histograms) {
+        long[] counts=new long[BUCKETS];
+        long n=0, sum=0, largest=0;
+        for(LatencyHistogram histogram: histograms){
+            for(int i=0; i<BUCKETS; i++)
+                counts[i]+=histogram.buckets[i].sum();
+            n+=histogram.count.sum();
+            sum+=histogram.total.sum();
+            largest=Math.max(largest, histogram.max.get());
+        }
+        return new LatencySnapshot(n, sum, percentile(counts, 0.50, largest), percentile(counts, 0.99, largest), largest);
+    }
+
+    // Upper bound of the bucket holding the requested rank, capped by the true maximum.
+    private static long percentile(long[] counts, double fraction, long largest) {
+        long seen=0, recorded=0;
+        for(long c: counts)
+            recorded+=c;
+        if(recorded==0)
+            return 0;
+        long rank=Math.max(1, (long) Math.ceil(fraction*recorded));
+        for(int i=0; i<BUCKETS; i++){
+            seen+=counts[i];
+            if(seen>=rank)
+                return Math.min(upperBound(i), largest);
+        }
+        return largest;
+    }
+
+    static int bucketOf(long nanos) {
+        if(nanos<SUB_BUCKETS)
+            return (int) nanos;
+        int exponent=63-Long.numberOfLeadingZeros(nanos);
+        int sub=(int) (nanos>>>(exponent-SUB_BITS))&(SUB_BUCKETS-1);
+        return (exponent-SUB_BITS+1)*SUB_BUCKETS+sub;
+    }
+
+    static long upperBound(int bucket) {
+        if(bucket<SUB_BUCKETS)
+            return bucket;
+        int exponent=bucket/SUB_BUCKETS+SUB_BITS-1;
+        long width=1L<<(exponent-SUB_BITS);
+        long lower=(SUB_BUCKETS+bucket%SUB_BUCKETS)*width;
+        return lower+width-1;
+    }
+}
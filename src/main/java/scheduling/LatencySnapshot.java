@@ -0,0 +1,12 @@
+package scheduling;
+
+/**
+ * Point-in-time summary of a LatencyHistogram. All durations are in nanoseconds.
+ */
+public record LatencySnapshot(long count, long totalNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+
+    //@POST: returns the mean duration, 0 when nothing was recorded
+    public double meanNanos() {
+        return count==0 ? 0 : (double) totalNanos/count;
+    }
+}
@@ -0,0 +1,107 @@
+package scheduling;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Handle for a group of tasks submitted together to a TiredExecutor.
+ * Each batch counts its own outstanding tasks, so completing a task only
+ * concerns the callers waiting on that batch.
+ */
+//@INV: pending.get()>=0
+//@INV: completion is done iff the batch is sealed and every submitted task finished
+public class TaskBatch {
+
+    private final AtomicInteger pending = new AtomicInteger(1); // 1 for the unsealed batch itself
+    private final AtomicInteger taskCount = new AtomicInteger(0);
+    private final AtomicInteger failedCount = new AtomicInteger(0);
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>(null);
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    TaskBatch() {}
+
+    //@POST: pending and taskCount incremented
+    void taskSubmitted() {
+        taskCount.incrementAndGet();
+        pending.incrementAndGet();
+    }
+
+    //@POST: pending decremented, failure recorded if failure!=null
+    void taskFinished(Throwable failure) {
+        if(failure!=null)
+            recordFailure(failure);
+        arrive();
+    }
+
+    //@PRE: failure!=null
+    void recordFailure(Throwable failure) {
+        failedCount.incrementAndGet();
+        firstFailure.compareAndSet(null, failure);
+    }
+
+    //@PRE: called exactly once, after the last taskSubmitted()
+    void seal() {
+        arrive();
+    }
+
+    private void arrive() {
+        if(pending.decrementAndGet()==0){
+            Throwable failure=firstFailure.get();
+            if(failure==null)
+                completion.complete(null);
+            else
+                completion.completeExceptionally(failure);
+        }
+    }
+
+    //@POST: returns a future completed when every task of the batch has finished,
+    //exceptionally with the first task failure if any task threw
+    public CompletableFuture<Void> completion() {
+        return completion.copy();
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    public int getTaskCount() {
+        return taskCount.get();
+    }
+
+    public int getFailedCount() {
+        return failedCount.get();
+    }
+
+    //@POST: every task of the batch has finished
+    //Task failures are not rethrown here; they are logged by the workers and reported by completion()
+    public void await() {
+        try{
+            completion.get();
+        }catch (ExecutionException ignored){
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for task", e);
+        }
+    }
+
+    //@POST: every task of the batch has finished, the first task failure is rethrown
+    //Unchecked exceptions and errors are rethrown as they are, anything else wrapped in a CompletionException
+    public void join() {
+        try{
+            completion.get();
+        }catch (ExecutionException e){
+            Throwable failure=e.getCause();
+            if(failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            if(failure instanceof Error)
+                throw (Error) failure;
+            throw new CompletionException(failure);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for task", e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package scheduling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one task run by a TiredThread.
+ * Its duration is the execution time; queueWait covers submit to start,
+ * including the wait for an idle worker.
+ */
+@Name("spl.TaskExecution")
+@Label("Task Execution")
+@Category({"Linear Algebra Engine", "Scheduling"})
+@Description("A task executed by a worker thread")
+class TaskExecutionEvent extends Event {
+
+    @Label("Worker Id")
+    int workerId;
+
+    @Label("Queue Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueWait;
+
+    @Label("Fatigue At Dispatch")
+    double fatigue;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,29 @@
+package scheduling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for handing one task to a TiredExecutor worker.
+ * Its duration is the time the submitter spent waiting for an idle worker.
+ * Recorded only while a flight recording with this event enabled is running.
+ */
+@Name("spl.TaskSubmit")
+@Label("Task Submit")
+@Category({"Linear Algebra Engine", "Scheduling"})
+@Description("A task handed to the least fatigued idle worker")
+class TaskSubmitEvent extends Event {
+
+    @Label("Worker Id")
+    int workerId;
+
+    @Label("Worker Fatigue")
+    @Description("Fatigue of the chosen worker when the task was handed over")
+    double fatigue;
+
+    @Label("Batched")
+    boolean batched;
+}
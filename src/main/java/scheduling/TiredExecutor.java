@@ -3,7 +3,15 @@ package scheduling;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 import javax.management.RuntimeErrorException;
     /* @INV:
@@ -12,18 +20,42 @@ import javax.management.RuntimeErrorException;
      * inFlight!=null &  inFlight.get()>=0
      * no worker appears more than once in idleMinHeap.
      * every worker in idleMinHeap is alive.
+     * ioInFlight!=null & ioInFlight.get()>=0
+     * unbatchedInFlight>=0 & unbatchedInFlight<=inFlight.get()
      */
 public class TiredExecutor {
 
     private final TiredThread[] workers;
     private final PriorityBlockingQueue<TiredThread> idleMinHeap = new PriorityBlockingQueue<>();
     private final AtomicInteger inFlight = new AtomicInteger(0);
+    // Guards idleMinHeap and unbatchedInFlight. Each released worker wakes one submitter,
+    // and batch completion is tracked by the batch itself, so waiters are never woken in a herd.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workerAvailable = lock.newCondition();
+    private final Condition unbatchedDrained = lock.newCondition();
+    private int unbatchedInFlight = 0; // tasks submitted through submit(), outside any batch
+    private final ExecutionMode mode;
+    private final ThreadFactory ioThreadFactory;
+    private final Object ioMonitor = new Object(); // I/O completions never wake CPU waiters
+    private final AtomicInteger ioInFlight = new AtomicInteger(0);
+    private final AtomicLong ioTasksCompleted = new AtomicLong(0);
+    private final AtomicLong ioTimeUsed = new AtomicLong(0);
+    private final AtomicBoolean ioShutdown = new AtomicBoolean(false);
     //@PRE:numThreads>0
+    //@POST: same as TiredExecutor(numThreads, ExecutionMode.PLATFORM)
+    public TiredExecutor(int numThreads){
+        this(numThreads, ExecutionMode.PLATFORM);
+    }
+    //@PRE:numThreads>0 & mode!=null
     //@POST: workers.length==numThreads and all workers are created and started.
     //@POST: idleMinHeap initially contains all workers.
-    public TiredExecutor(int numThreads){
+    public TiredExecutor(int numThreads, ExecutionMode mode){
         if(numThreads<=0)
             throw new IllegalArgumentException("Index cant be under 1");
+        if(mode==null)
+            throw new NullPointerException("mode is null");
+        this.mode=mode;
+        this.ioThreadFactory=mode==ExecutionMode.VIRTUAL ? Thread.ofVirtual().name("tired-io-", 0).factory() : null;
         workers=new TiredThread[numThreads];
         for(int i=0;i<numThreads;i++){
             TiredThread newThread=new TiredThread(i, 0.5 + Math.random());
@@ -36,13 +68,72 @@ public class TiredExecutor {
     //@POST:Task is eventually executed exactly once
     //@POST:Worker is returned to idleMinHeap after task completion
     public void submit(Runnable task){
+        dispatch(task, null);
+    }
+    //@PRE:tasks!=null
+    //@POST:All tasks are executed, as are all tasks previously passed to submit()
+    public void submitAll(Iterable<Runnable> tasks) {
+        // TODO: submit tasks one by one and wait until all finish
+        submitBatch(tasks).await();
+        lock.lock();
+        try{
+            while(unbatchedInFlight>0){
+                try {
+                    unbatchedDrained.await();
+                }catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for task",e);
+                }
+            }
+        }finally{
+            lock.unlock();
+        }
+    }
+    //@PRE:tasks!=null
+    //@POST:all tasks are handed to workers, returns a handle completed when they have all finished
+    public TaskBatch submitBatch(Iterable<Runnable> tasks){
+        if(tasks==null)
+            throw new NullPointerException("tasks is null");
+        TaskBatch batch=new TaskBatch();
+        try{
+            for(Runnable task: tasks)
+                dispatch(task, batch);
+        }finally{
+            batch.seal();
+        }
+        return batch;
+    }
+    //@PRE:tasks!=null
+    //@POST:returns immediately, tasks are handed to workers by a virtual dispatcher thread
+    public TaskBatch submitBatchAsync(Iterable<Runnable> tasks){
+        if(tasks==null)
+            throw new NullPointerException("tasks is null");
+        TaskBatch batch=new TaskBatch();
+        Thread.ofVirtual().name("tired-dispatch").start(()->{
+            try{
+                for(Runnable task: tasks)
+                    dispatch(task, batch);
+            }catch (RuntimeException e){
+                batch.recordFailure(e);
+            }finally{
+                batch.seal();
+            }
+        });
+        return batch;
+    }
+
+    private void dispatch(Runnable task, TaskBatch batch){
         if(task==null) 
             throw new NullPointerException("task is null");
         final TiredThread worker;
-        synchronized(this){
+        long submitTime=System.nanoTime();
+        TaskSubmitEvent event=new TaskSubmitEvent();
+        event.begin();
+        lock.lock();
+        try{
             while(idleMinHeap.isEmpty()){
                 try{
-                    wait();
+                    workerAvailable.await();
                 }catch(InterruptedException e){
                     Thread.currentThread().interrupt();
                     throw new RuntimeException("Interrupted while waiting for idle worker", e);
@@ -55,73 +146,222 @@ public class TiredExecutor {
             idleMinHeap.remove(best);
             worker=best;
             inFlight.incrementAndGet();
+            if(batch==null)
+                unbatchedInFlight++;
+        }finally{
+            lock.unlock();
+        }
+        if(event.shouldCommit()){
+            event.workerId=worker.getWorkerId();
+            event.fatigue=worker.getFatigue();
+            event.batched=batch!=null;
+            event.commit();
+        }
+        if(batch!=null)
+            batch.taskSubmitted();
+        // Runs on the worker after it has accounted for the task, so released workers carry their new fatigue.
+        Consumer<Throwable> completion=failure->{
+            release(worker, batch==null);
+            if(batch!=null)
+                batch.taskFinished(failure);
+        };
+        try{
+            worker.newTask(task, submitTime, completion);
+        }catch (RuntimeException e){
+            release(worker, batch==null);
+            if(batch!=null)
+                batch.taskFinished(e);
+            throw e;
+        }
+    }
+
+    private void release(TiredThread worker, boolean unbatched){
+        lock.lock();
+        try{
+            idleMinHeap.add(worker);
+            inFlight.decrementAndGet();
+            workerAvailable.signal();
+            if(unbatched&&--unbatchedInFlight==0)
+                unbatchedDrained.signalAll();
+        }finally{
+            lock.unlock();
+        }
+    }
+    public ExecutionMode getMode() {
+        return mode;
+    }
+    //@PRE:task!=null
+    //@POST:in VIRTUAL mode task runs on its own virtual thread without occupying a worker
+    //@POST:in PLATFORM mode task runs on a worker, as with submitBatch
+    //@POST:returns a handle for this task alone, completed exceptionally if the task throws
+    public TaskBatch submitIo(Runnable task){
+        if(task==null)
+            throw new NullPointerException("task is null");
+        return submitIoBatch(List.of(task));
+    }
+    //@PRE:tasks!=null
+    //@POST:every task runs as with submitIo, returns one handle for these tasks only
+    public TaskBatch submitIoBatch(Iterable<Runnable> tasks){
+        if(tasks==null)
+            throw new NullPointerException("tasks is null");
+        if(mode==ExecutionMode.PLATFORM)
+            return submitBatch(tasks);
+        TaskBatch batch=new TaskBatch();
+        try{
+            for(Runnable task: tasks)
+                startIo(task, batch);
+        }finally{
+            batch.seal();
+        }
+        return batch;
+    }
+    //@PRE:tasks!=null
+    //@POST:all tasks are executed, the first task failure is rethrown as by TaskBatch.join
+    //Only these tasks are waited for, not the I/O of other callers
+    public void submitAllIo(Iterable<Runnable> tasks){
+        submitIoBatch(tasks).join();
+    }
+    //@PRE:task!=null
+    //@POST:returns the result of task, an exception thrown by task is rethrown here
+    //@POST:in VIRTUAL mode task runs on its own virtual thread, in PLATFORM mode on the calling thread
+    //Running on the caller keeps PLATFORM mode free of extra worker tasks, fatigue and metrics
+    public <T> T callIo(Callable<T> task) throws Exception{
+        if(task==null)
+            throw new NullPointerException("task is null");
+        if(mode==ExecutionMode.PLATFORM)
+            return task.call();
+        AtomicReference<T> result=new AtomicReference<>();
+        AtomicReference<Exception> failure=new AtomicReference<>();
+        // Exceptions are handed back rather than thrown, so workers do not log them as task failures.
+        submitIo(()->{
+            try{
+                result.set(task.call());
+            }catch (Exception e){
+                failure.set(e);
+            }
+        }).join();
+        if(failure.get()!=null)
+            throw failure.get();
+        return result.get();
+    }
+
+    private void startIo(Runnable task, TaskBatch batch){
+        if(task==null)
+            throw new NullPointerException("task is null");
+        ioInFlight.incrementAndGet();
+        if(ioShutdown.get()){
+            ioTaskDone();
+            throw new IllegalStateException("Executor is shut down");
         }
+        batch.taskSubmitted();
+        // The batch finishes last, so a caller that joined it sees the I/O counters updated.
         Runnable wrapped=()->{
+            Throwable failure=null;
+            long start=System.nanoTime();
             try{
                 task.run();
+            }catch (Throwable t){
+                failure=t;
             }finally{
-                synchronized(TiredExecutor.this) {
-                    idleMinHeap.add(worker);
-                    inFlight.decrementAndGet();
-                    TiredExecutor.this.notifyAll();
-                }
+                ioTimeUsed.addAndGet(System.nanoTime()-start);
+                ioTasksCompleted.incrementAndGet();
+                ioTaskDone();
+                batch.taskFinished(failure);
             }
         };
         try{
-            worker.newTask(wrapped);
+            ioThreadFactory.newThread(wrapped).start();
         }catch (RuntimeException e){
-            synchronized (this){
-                idleMinHeap.add(worker);
-                inFlight.decrementAndGet();
-                notifyAll();
-            }
+            ioTaskDone();
+            batch.taskFinished(e);
             throw e;
         }
     }
-    //@PRE:tasks!=null
-    //@POST:All tasks are executed
-    public void submitAll(Iterable<Runnable> tasks) {
-        // TODO: submit tasks one by one and wait until all finish
-        for(Runnable task: tasks)
-            submit(task);
-        synchronized(this){
-            while (inFlight.get()>0){
-                try {
-                    wait();
-                }catch (InterruptedException e){
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Interrupted while waiting for task",e);
-                }
-            }
+
+    private void ioTaskDone(){
+        synchronized(ioMonitor){
+            if(ioInFlight.decrementAndGet()==0)
+                ioMonitor.notifyAll();
+        }
+    }
+    private void awaitIo() throws InterruptedException{
+        synchronized(ioMonitor){
+            while(ioInFlight.get()>0)
+                ioMonitor.wait();
         }
     }
     //@PRE:None
-    //@POST:All worker threads are shut down and terminated
+    //@POST:All worker threads are shut down and terminated, all I/O tasks are finished
     public void shutdown() throws InterruptedException{
         // TODO
+        ioShutdown.set(true);
         for(TiredThread worker:workers)
             worker.shutdown();
          for(TiredThread worker:workers)
             worker.join();
+        awaitIo();
+    }
+    //@PRE:None
+    //@POST:returns the number of worker threads
+    public int getWorkerCount(){
+        return workers.length;
+    }
+    //@PRE:None
+    //@POST:returns the current fatigue of every worker, indexed by worker id
+    public double[] getWorkerFatigues(){
+        double[] fatigues=new double[workers.length];
+        for(int i=0;i<workers.length;i++)
+            fatigues[i]=workers[i].getFatigue();
+        return fatigues;
+    }
+    //@PRE:None
+    //@POST:returns a structured snapshot of every worker and of the executor as a whole
+    public ExecutorMetrics getMetrics(){
+        List<WorkerMetrics> perWorker=new ArrayList<>(workers.length);
+        LatencyHistogram[] queueWaits=new LatencyHistogram[workers.length];
+        LatencyHistogram[] executions=new LatencyHistogram[workers.length];
+        long tasks=0;
+        double utilization=0;
+        for(int i=0;i<workers.length;i++){
+            WorkerMetrics metrics=workers[i].getMetrics();
+            perWorker.add(metrics);
+            tasks+=metrics.tasksCompleted();
+            utilization+=metrics.utilization();
+            queueWaits[i]=workers[i].getQueueWaitHistogram();
+            executions[i]=workers[i].getExecutionHistogram();
+        }
+        return new ExecutorMetrics(mode, workers.length, inFlight.get(), idleMinHeap.size(), tasks,
+                utilization/workers.length, LatencyHistogram.merge(queueWaits), LatencyHistogram.merge(executions),
+                List.copyOf(perWorker), ioTasksCompleted.get(), ioInFlight.get(), ioTimeUsed.get());
     }
     //@PRE:None
     //@POST:Returned string contains one line per worker
     public synchronized String getWorkerReport() {
         // TODO: return readable statistics for each worker
-        String report="";
+        StringBuilder report=new StringBuilder();
         int i=1;
         for(TiredThread worker:workers){
             if(worker!=null){
-                report=report+"Worker number: "+i+": ";
-                report=report+"Name: "+worker.getName()+", ";
-                report=report+"Id: "+worker.getWorkerId()+", ";
-                report=report+"Fatigue: "+worker.getFatigue()+", ";
-                report=report+"Time Used: "+worker.getTimeUsed()+", ";
-                report=report+"Time Idle: "+worker.getTimeIdle();
-                report=report+"\n";
+                WorkerMetrics metrics=worker.getMetrics();
+                report.append("Worker number: ").append(i).append(": ");
+                report.append("Name: ").append(worker.getName()).append(", ");
+                report.append("Id: ").append(worker.getWorkerId()).append(", ");
+                report.append("Fatigue: ").append(metrics.fatigue()).append(", ");
+                report.append("Time Used: ").append(metrics.timeUsedNanos()).append(", ");
+                report.append("Time Idle: ").append(metrics.timeIdleNanos()).append(", ");
+                report.append("Tasks: ").append(metrics.tasksCompleted()).append(", ");
+                report.append("Exec p50/p99/max: ").append(metrics.execution().p50Nanos()).append('/')
+                        .append(metrics.execution().p99Nanos()).append('/').append(metrics.execution().maxNanos());
+                report.append('\n');
             }
             i++;
         }
-        return report;
+        if(mode==ExecutionMode.VIRTUAL){
+            report.append("Virtual I/O tasks: ").append(ioTasksCompleted.get()).append(", ");
+            report.append("In flight: ").append(ioInFlight.get()).append(", ");
+            report.append("Time Used: ").append(ioTimeUsed.get());
+            report.append('\n');
+        }
+        return report.toString();
     }
 }
\ No newline at end of file
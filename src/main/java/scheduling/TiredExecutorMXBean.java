@@ -0,0 +1,32 @@
+package scheduling;
+
+/**
+ * JMX view of a TiredExecutor, registered through TiredExecutorMonitor.
+ * Every attribute is read from a fresh getMetrics() snapshot; times are in nanoseconds.
+ */
+public interface TiredExecutorMXBean {
+
+    String getMode();
+
+    int getWorkerCount();
+
+    int getInFlight();
+
+    int getIdleWorkers();
+
+    long getTasksCompleted();
+
+    double getUtilization();
+
+    double[] getWorkerFatigues();
+
+    boolean[] getWorkerBusy();
+
+    long getQueueWaitP50Nanos();
+
+    long getQueueWaitP99Nanos();
+
+    long getExecutionP50Nanos();
+
+    long getExecutionP99Nanos();
+}
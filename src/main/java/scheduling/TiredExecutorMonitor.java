@@ -0,0 +1,97 @@
+package scheduling;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Exposes a TiredExecutor to JMX tooling such as JConsole or VisualVM.
+ */
+//@INV: executor!=null
+public class TiredExecutorMonitor implements TiredExecutorMXBean {
+
+    private final TiredExecutor executor;
+
+    //@PRE: executor!=null
+    public TiredExecutorMonitor(TiredExecutor executor) {
+        if(executor==null)
+            throw new NullPointerException("executor is null");
+        this.executor=executor;
+    }
+
+    //@PRE: executor!=null & name is a valid ObjectName key value
+    //@POST: executor is visible as scheduling:type=TiredExecutor,name=<name> on the platform MBean server
+    public static ObjectName register(TiredExecutor executor, String name) {
+        try{
+            ObjectName objectName=new ObjectName("scheduling:type=TiredExecutor,name="+name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new TiredExecutorMonitor(executor), objectName);
+            return objectName;
+        }catch (JMException e){
+            throw new IllegalStateException("Failed to register executor MBean "+name, e);
+        }
+    }
+
+    @Override
+    public String getMode() {
+        return executor.getMode().name();
+    }
+
+    @Override
+    public int getWorkerCount() {
+        return executor.getWorkerCount();
+    }
+
+    @Override
+    public int getInFlight() {
+        return executor.getMetrics().inFlight();
+    }
+
+    @Override
+    public int getIdleWorkers() {
+        return executor.getMetrics().idleWorkers();
+    }
+
+    @Override
+    public long getTasksCompleted() {
+        return executor.getMetrics().tasksCompleted();
+    }
+
+    @Override
+    public double getUtilization() {
+        return executor.getMetrics().utilization();
+    }
+
+    @Override
+    public double[] getWorkerFatigues() {
+        return executor.getWorkerFatigues();
+    }
+
+    @Override
+    public boolean[] getWorkerBusy() {
+        ExecutorMetrics metrics=executor.getMetrics();
+        boolean[] busy=new boolean[metrics.workerCount()];
+        for(int i=0; i<busy.length; i++)
+            busy[i]=metrics.workers().get(i).busy();
+        return busy;
+    }
+
+    @Override
+    public long getQueueWaitP50Nanos() {
+        return executor.getMetrics().queueWait().p50Nanos();
+    }
+
+    @Override
+    public long getQueueWaitP99Nanos() {
+        return executor.getMetrics().queueWait().p99Nanos();
+    }
+
+    @Override
+    public long getExecutionP50Nanos() {
+        return executor.getMetrics().execution().p50Nanos();
+    }
+
+    @Override
+    public long getExecutionP99Nanos() {
+        return executor.getMetrics().execution().p99Nanos();
+    }
+}
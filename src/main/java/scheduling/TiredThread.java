@@ -4,6 +4,8 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 //@INV:id>=0
 //@INV:fatigueFactor>=0
 //@INV:alive==true implies thread may accept tasks
@@ -28,6 +30,12 @@ public class TiredThread extends Thread implements Comparable<TiredThread> {
     private final AtomicLong timeUsed = new AtomicLong(0); // Total time spent executing tasks
     private final AtomicLong timeIdle = new AtomicLong(0); // Total time spent idle
     private final AtomicLong idleStartTime = new AtomicLong(0); // Timestamp when the worker became idle
+    private volatile long submitTime = 0; // Timestamp when the pending task was submitted
+    private volatile Consumer<Throwable> completion = null; // Told the pending task's failure, or null, after bookkeeping
+    private final long createdTime = System.nanoTime();
+    private final LongAdder tasksCompleted = new LongAdder();
+    private final LatencyHistogram queueWait = new LatencyHistogram(); // submit to start
+    private final LatencyHistogram execution = new LatencyHistogram();
     //@PRE:id>=0 & fatigueFactor>=0
     //@POST:this.id == id
     //@POST:this.fatigueFactor == fatigueFactor
@@ -67,6 +75,29 @@ public class TiredThread extends Thread implements Comparable<TiredThread> {
         return timeIdle.get();
     }
 
+    public long getTasksCompleted() {
+        return tasksCompleted.sum();
+    }
+
+    LatencyHistogram getQueueWaitHistogram() {
+        return queueWait;
+    }
+
+    LatencyHistogram getExecutionHistogram() {
+        return execution;
+    }
+
+    //@POST: returns a snapshot of this worker, the current idle period counts as idle time
+    public WorkerMetrics getMetrics() {
+        boolean working = busy.get();
+        long now = System.nanoTime();
+        long used = timeUsed.get();
+        long idle = timeIdle.get() + (working || !alive.get() ? 0 : Math.max(0, now - idleStartTime.get()));
+        long lifetime = Math.max(1, now - createdTime);
+        return new WorkerMetrics(id, getName(), working, getFatigue(), tasksCompleted.sum(), used, idle,
+                Math.min(1.0, (double) used / lifetime), queueWait.snapshot(), execution.snapshot());
+    }
+
     /**
      * Assign a task to this worker.
      * This method is non-blocking: if the worker is not ready to accept a task,
@@ -75,10 +106,19 @@ public class TiredThread extends Thread implements Comparable<TiredThread> {
     //@PRE:task!=null & alive ==true
     //@POST:task is placed in handoff queue
     public void newTask(Runnable task) {   
+        newTask(task, System.nanoTime(), null);
+    }
+
+    //@PRE:task!=null & alive ==true
+    //@POST:task is placed in handoff queue, its queue wait is measured from submitTime
+    //@POST:once the task ran and this worker's counters include it, completion (if any) receives its failure or null
+    void newTask(Runnable task, long submitTime, Consumer<Throwable> completion) {
         if(task==null)
             throw new NullPointerException("Task cannot be null");
         if(!alive.get()) 
             throw new IllegalStateException("Worker is shut down");
+        this.submitTime = submitTime;
+        this.completion = completion;
         handoff.add(task); 
     }
 
@@ -111,16 +151,35 @@ public class TiredThread extends Thread implements Comparable<TiredThread> {
                 if (task == POISON_PILL)
                     break;
                 busy.set(true);
+                TaskExecutionEvent event = new TaskExecutionEvent();
+                if (event.isEnabled()) {
+                    event.workerId = id;
+                    event.fatigue = getFatigue();
+                    event.begin();
+                }
+                Consumer<Throwable> done = completion;
+                Throwable failure = null;
                 long start = System.nanoTime();
                 try {
                     task.run();
                 } catch (Throwable t) {
+                    failure = t;
+                    event.failed = true;
                     System.err.println("Worker " + id + " failed to execute task: " + t.getMessage());
                 } finally {
                     long end = System.nanoTime();
                     timeUsed.addAndGet(end - start);
+                    execution.record(end - start);
+                    queueWait.record(start - submitTime);
+                    tasksCompleted.increment();
                     busy.set(false);
                     idleStartTime.set(end); 
+                    if (event.shouldCommit()) {
+                        event.queueWait = start - submitTime;
+                        event.commit();
+                    }
+                    if (done != null)
+                        done.accept(failure);
                 }
             }
         } catch (InterruptedException e) {
@@ -0,0 +1,11 @@
+package scheduling;
+
+/**
+ * Snapshot of one TiredThread: task count, busy and idle time, utilization
+ * (busy share of the worker's lifetime) and latency summaries.
+ * Times are in nanoseconds. Serializes to JSON as is.
+ */
+public record WorkerMetrics(int id, String name, boolean busy, double fatigue, long tasksCompleted,
+                            long timeUsedNanos, long timeIdleNanos, double utilization,
+                            LatencySnapshot queueWait, LatencySnapshot execution) {
+}
@@ -0,0 +1,119 @@
+package spl.lae;
+
+import parser.ComputationNodeType;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Heap allocation per ComputationNodeType, measured with the per-thread allocation
+ * counters of com.sun.management.ThreadMXBean. A node is charged with everything its
+ * calling thread allocates while loading, computing and reading back, plus everything
+ * its tasks allocate on the worker threads. Shared by concurrent computations.
+ * The first nodes of a process also pay for one-off class loading and lambda linkage.
+ * The JVM keeps no counter for virtual threads: nodes resolved on one are charged with
+ * their worker-side allocations only, and are counted as partial in the report.
+ */
+//@INV: bytes, nodes and partialNodes hold a counter for every ComputationNodeType
+public class AllocationStats {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final Map<ComputationNodeType, LongAdder> bytes = new EnumMap<>(ComputationNodeType.class);
+    private final Map<ComputationNodeType, LongAdder> nodes = new EnumMap<>(ComputationNodeType.class);
+    private final Map<ComputationNodeType, LongAdder> partialNodes = new EnumMap<>(ComputationNodeType.class);
+
+    //@POST: all counters are 0
+    //@POST: throws IllegalStateException if the JVM does not count allocations per thread
+    public AllocationStats() {
+        if(!isSupported())
+            throw new IllegalStateException("Per-thread allocation accounting is not supported by this JVM");
+        for(ComputationNodeType type: ComputationNodeType.values()){
+            bytes.put(type, new LongAdder());
+            nodes.put(type, new LongAdder());
+            partialNodes.put(type, new LongAdder());
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean=ManagementFactory.getThreadMXBean();
+        if(!(bean instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean threads=(com.sun.management.ThreadMXBean) bean;
+        if(!threads.isThreadAllocatedMemorySupported())
+            return null;
+        if(!threads.isThreadAllocatedMemoryEnabled())
+            threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    public static boolean isSupported() {
+        return THREADS!=null;
+    }
+
+    //@PRE: isSupported()
+    //@POST: returns the bytes allocated by the current thread since it started, -1 on a virtual thread
+    static long currentThreadAllocatedBytes() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    //@PRE: type!=null & allocated>=0
+    //@POST: one node of type that allocated the given number of bytes is counted,
+    //       as partial unless the allocations of its calling thread are included
+    void record(ComputationNodeType type, long allocated, boolean complete) {
+        nodes.get(type).increment();
+        bytes.get(type).add(allocated);
+        if(!complete)
+            partialNodes.get(type).increment();
+    }
+
+    public long getBytes(ComputationNodeType type) {
+        return bytes.get(type).sum();
+    }
+
+    public long getNodes(ComputationNodeType type) {
+        return nodes.get(type).sum();
+    }
+
+    //@POST: returns how many nodes of type were charged without their calling thread's allocations
+    public long getPartialNodes(ComputationNodeType type) {
+        return partialNodes.get(type).sum();
+    }
+
+    public long getTotalBytes() {
+        long total=0;
+        for(LongAdder adder: bytes.values())
+            total+=adder.sum();
+        return total;
+    }
+
+    //@POST: all counters are 0
+    public void reset() {
+        for(ComputationNodeType type: ComputationNodeType.values()){
+            bytes.get(type).reset();
+            nodes.get(type).reset();
+            partialNodes.get(type).reset();
+        }
+    }
+
+    //@POST: returns one line per node type that was computed, and a total line
+    public String getReport() {
+        StringBuilder report=new StringBuilder();
+        long partial=0;
+        for(ComputationNodeType type: ComputationNodeType.values()){
+            long count=getNodes(type);
+            if(count==0)
+                continue;
+            long allocated=getBytes(type);
+            report.append(String.format("Allocated by %s: %d nodes, %d bytes, %d bytes per node%n",
+                    type, count, allocated, allocated/count));
+            partial+=getPartialNodes(type);
+        }
+        report.append(String.format("Allocated in total: %d bytes%n", getTotalBytes()));
+        if(partial>0)
+            report.append(String.format("Incomplete: %d nodes ran on virtual threads, only their worker-side allocations are counted%n", partial));
+        return report.toString();
+    }
+}
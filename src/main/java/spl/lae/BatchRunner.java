@@ -0,0 +1,211 @@
+package spl.lae;
+
+import parser.*;
+import scheduling.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Evaluates many input files in one JVM on a single shared TiredExecutor.
+ * Up to `concurrency` files are in progress at once; every file is parsed,
+ * computed and written independently, and a failure only affects its own output.
+ * Parsing and writing are I/O tasks of the executor, so in VIRTUAL mode they never hold a worker.
+ * Lanes are virtual threads, except while allocations are counted: the JVM keeps no allocation
+ * counter for virtual threads, so then they are `concurrency` platform threads.
+ */
+//@INV: executor!=null & concurrency>0
+public class BatchRunner {
+
+    /** One input file and the path its result is written to. */
+    public static class Job {
+        public final String input;
+        public final String output;
+        public Job(String input, String output) {
+            if(input==null||output==null)
+                throw new NullPointerException("Job paths cant be null");
+            this.input=input;
+            this.output=output;
+        }
+    }
+
+    /** Outcome and per-stage timings of one job, in nanoseconds. */
+    public static class JobResult {
+        public final Job job;
+        public final String error; // null on success
+        public final long parseTime;
+        public final long computeTime;
+        public final long writeTime;
+        JobResult(Job job, String error, long parseTime, long computeTime, long writeTime) {
+            this.job=job;
+            this.error=error;
+            this.parseTime=parseTime;
+            this.computeTime=computeTime;
+            this.writeTime=writeTime;
+        }
+        public boolean succeeded() {
+            return error==null;
+        }
+    }
+
+    private final TiredExecutor executor;
+    private final int concurrency;
+    private final ResultCache cache; // may be null
+    private volatile AllocationStats allocations; // null when allocations are not counted
+
+    //@PRE: executor!=null & concurrency>0
+    public BatchRunner(TiredExecutor executor, int concurrency) {
+        this(executor, concurrency, null);
+    }
+
+    //@PRE: executor!=null & concurrency>0
+    //@POST: jobs share cache, so subexpressions repeated across files are computed once while cached
+    public BatchRunner(TiredExecutor executor, int concurrency, ResultCache cache) {
+        if(executor==null)
+            throw new NullPointerException("executor is null");
+        if(concurrency<=0)
+            throw new IllegalArgumentException("concurrency must be positive");
+        this.executor=executor;
+        this.concurrency=concurrency;
+        this.cache=cache;
+    }
+
+    //@POST: allocations of the jobs run from now on are added to allocations, null turns counting off
+    public void setAllocationStats(AllocationStats allocations) {
+        this.allocations=allocations;
+    }
+
+    //@PRE: inputDir is a directory, outputDir is neither inputDir nor nested with it
+    //@POST: returns one job per .json / .json.gz file in inputDir, writing to the same name in outputDir
+    public static List<Job> fromDirectory(Path inputDir, Path outputDir) throws IOException {
+        if(!Files.isDirectory(inputDir))
+            throw new IllegalArgumentException("Not a directory: "+inputDir);
+        Path input=inputDir.toRealPath();
+        Path output=outputDir.toAbsolutePath().normalize();
+        if(Files.exists(output))
+            output=output.toRealPath();
+        // outputs keep their input's file name, so a shared directory would overwrite every input
+        if(output.startsWith(input) || input.startsWith(output))
+            throw new IllegalArgumentException("Output directory "+outputDir+" must not be or contain input directory "+inputDir+", nor lie inside it");
+        Files.createDirectories(outputDir);
+        List<Job> jobs=new ArrayList<>();
+        try(DirectoryStream<Path> files=Files.newDirectoryStream(inputDir, "*.{json,json.gz}")){
+            for(Path file: files)
+                jobs.add(new Job(file.toString(), outputDir.resolve(file.getFileName()).toString()));
+        }
+        jobs.sort((a, b)->a.input.compareTo(b.input));
+        return jobs;
+    }
+
+    //@PRE: manifest is a readable file
+    //@POST: returns one job per "<input> <output>" line, relative paths resolved against the manifest
+    //Blank lines and lines starting with '#' are ignored
+    public static List<Job> fromManifest(Path manifest) throws IOException {
+        Path baseDir=manifest.toAbsolutePath().getParent();
+        List<Job> jobs=new ArrayList<>();
+        try(BufferedReader reader=Files.newBufferedReader(manifest)){
+            String line;
+            int lineNumber=0;
+            while((line=reader.readLine())!=null){
+                lineNumber++;
+                line=line.trim();
+                if(line.isEmpty()||line.startsWith("#"))
+                    continue;
+                String[] paths=line.split("\\s+");
+                if(paths.length!=2)
+                    throw new IllegalArgumentException("Invalid manifest line "+lineNumber+": "+line);
+                jobs.add(new Job(baseDir.resolve(paths[0]).toString(), baseDir.resolve(paths[1]).toString()));
+            }
+        }
+        return jobs;
+    }
+
+    //@PRE: jobs!=null
+    //@POST: every job has been evaluated, results are returned in job order
+    public List<JobResult> run(List<Job> jobs) {
+        if(jobs==null)
+            throw new NullPointerException("jobs is null");
+        List<JobResult> results=new ArrayList<>();
+        Semaphore lanePermits=new Semaphore(concurrency);
+        AllocationStats counted=allocations;
+        try(LinearAlgebraEngine engine=new LinearAlgebraEngine(executor, cache);
+            ExecutorService lanes=counted==null ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(concurrency)){
+            engine.setAllocationStats(counted);
+            List<Future<JobResult>> pending=new ArrayList<>();
+            for(Job job: jobs)
+                pending.add(lanes.submit(()->runInLane(job, engine, lanePermits)));
+            for(Future<JobResult> future: pending)
+                results.add(future.get());
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running batch", e);
+        }catch (ExecutionException e){
+            throw new RuntimeException("Batch job failed unexpectedly", e.getCause());
+        }
+        return results;
+    }
+
+    // Holding a permit bounds the number of files in progress; the engine itself is shared.
+    private JobResult runInLane(Job job, LinearAlgebraEngine engine, Semaphore lanePermits) throws InterruptedException {
+        lanePermits.acquire();
+        try{
+            return runJob(job, engine);
+        }finally{
+            lanePermits.release();
+        }
+    }
+
+    private JobResult runJob(Job job, LinearAlgebraEngine engine) {
+        long parseTime=0, computeTime=0, writeTime=0;
+        long start=System.nanoTime();
+        try{
+            ComputationNode root=executor.callIo(()->new InputParser().parse(job.input));
+            long parsed=System.nanoTime();
+            parseTime=parsed-start;
+            double[][] result=engine.run(root).getMatrix();
+            long computed=System.nanoTime();
+            computeTime=computed-parsed;
+            executor.callIo(()->{
+                OutputWriter.write(result, job.output);
+                return null;
+            });
+            writeTime=System.nanoTime()-computed;
+            return new JobResult(job, null, parseTime, computeTime, writeTime);
+        }catch (Throwable t){
+            String message=t.getMessage()==null ? t.toString() : t.getMessage();
+            try{
+                OutputWriter.write(message, job.output);
+            }catch (Throwable ignored){
+            }
+            return new JobResult(job, message, parseTime, computeTime, writeTime);
+        }
+    }
+
+    //@PRE: results!=null
+    //@POST: returns a human readable report with one line per job and a total line
+    public static String summary(List<JobResult> results, long wallTime) {
+        StringBuilder report=new StringBuilder();
+        int failed=0;
+        for(JobResult r: results){
+            report.append(r.job.input).append(" -> ").append(r.job.output).append(": ");
+            report.append(r.succeeded() ? "OK" : "ERROR ("+r.error+")");
+            report.append(String.format(", parse=%.3fms, compute=%.3fms, write=%.3fms%n",
+                    r.parseTime/1e6, r.computeTime/1e6, r.writeTime/1e6));
+            if(!r.succeeded())
+                failed++;
+        }
+        report.append(String.format("Total: %d files, %d failed, wall time %.3fms%n",
+                results.size(), failed, wallTime/1e6));
+        return report.toString();
+    }
+}
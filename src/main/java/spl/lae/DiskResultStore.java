@@ -0,0 +1,264 @@
+package spl.lae;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Content-addressed store of resolved matrices on local disk, shared across JVMs.
+ * Each result is one file named "<key>.mat": a magic number, the dimensions,
+ * the values in row-major order and a CRC32 of everything before it.
+ * Files are written to a temporary name and atomically moved into place, and are
+ * memory-mapped on read. A file failing its integrity check is deleted and reported
+ * as a miss. Once the store exceeds its size cap the least recently used files,
+ * by modification time, are deleted.
+ */
+//@INV: directory!=null & maxBytes>0
+public class DiskResultStore {
+
+    public static final String EXTENSION = ".mat";
+    private static final int MAGIC = 0x4C414531; // "LAE1"
+    private static final int HEADER_BYTES = 3*Integer.BYTES;
+    private static final int TRAILER_BYTES = Long.BYTES;
+
+    private static final class StoredFile {
+        final Path path;
+        final long size;
+        final FileTime modified;
+        StoredFile(Path path, long size, FileTime modified) {
+            this.path=path;
+            this.size=size;
+            this.modified=modified;
+        }
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong bytes = new AtomicLong(); // approximate, exact after every eviction pass
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong corrupted = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    //@PRE: directory!=null & maxBytes>0
+    //@POST: directory exists, existing results in it are reused
+    public DiskResultStore(Path directory, long maxBytes) throws IOException {
+        if(directory==null)
+            throw new NullPointerException("directory is null");
+        if(maxBytes<=0)
+            throw new IllegalArgumentException("maxBytes must be positive");
+        this.directory=directory;
+        this.maxBytes=maxBytes;
+        Files.createDirectories(directory);
+        bytes.set(totalSize(listResults()));
+    }
+
+    //@PRE: key is a hex string
+    //@POST: returns the stored matrix, or null if it is absent or fails its integrity check
+    public double[][] get(String key) {
+        Path file=fileOf(key);
+        double[][] matrix;
+        try(FileChannel channel=FileChannel.open(file, StandardOpenOption.READ)){
+            matrix=decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }catch (IOException e){ // usually NoSuchFileException
+            misses.incrementAndGet();
+            return null;
+        }
+        if(matrix==null){
+            corrupted.incrementAndGet();
+            misses.incrementAndGet();
+            delete(file);
+            return null;
+        }
+        hits.incrementAndGet();
+        touch(file);
+        return matrix;
+    }
+
+    //@PRE: key is a hex string & matrix!=null & matrix is not ragged
+    //@POST: the matrix is stored under key, least recently used results are evicted above the size cap
+    public void put(String key, double[][] matrix) {
+        if(matrix==null)
+            throw new NullPointerException("matrix is null");
+        Path file=fileOf(key);
+        int rows=matrix.length;
+        int cols=rows==0 ? 0 : matrix[0].length;
+        long size=(long) HEADER_BYTES+(long) rows*cols*Double.BYTES+TRAILER_BYTES;
+        if(size>maxBytes||size>Integer.MAX_VALUE)
+            return;
+        ByteBuffer buffer=ByteBuffer.allocate((int) size).order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(MAGIC).putInt(rows).putInt(cols);
+        for(double[] row: matrix){
+            if(row.length!=cols)
+                throw new IllegalArgumentException("Matrix rows must have equal length");
+            for(double v: row)
+                buffer.putDouble(v);
+        }
+        CRC32 crc=new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue()).flip();
+        Path temp=null;
+        try{
+            temp=Files.createTempFile(directory, key, ".tmp");
+            try(FileChannel channel=FileChannel.open(temp, StandardOpenOption.WRITE)){
+                while(buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (IOException e){
+            if(temp!=null)
+                delete(temp);
+            return; // the store is an optimization, a failed write only costs a later recomputation
+        }
+        if(bytes.addAndGet(size)>maxBytes)
+            evict();
+    }
+
+    public boolean contains(String key) {
+        return Files.exists(fileOf(key));
+    }
+
+    // Rescans the directory so results written by other processes are accounted for too.
+    private synchronized void evict() {
+        List<Path> files;
+        try{
+            files=listResults();
+        }catch (IOException e){
+            return;
+        }
+        List<StoredFile> present=new ArrayList<>();
+        long total=0;
+        for(Path file: files){
+            try{
+                StoredFile stored=new StoredFile(file, Files.size(file), Files.getLastModifiedTime(file));
+                present.add(stored);
+                total+=stored.size;
+            }catch (IOException ignored){ // deleted concurrently
+            }
+        }
+        present.sort(Comparator.comparing((StoredFile f)->f.modified));
+        for(int i=0; i<present.size()&&total>maxBytes; i++){
+            if(delete(present.get(i).path)){
+                total-=present.get(i).size;
+                evictions.incrementAndGet();
+            }
+        }
+        bytes.set(total);
+    }
+
+    // Returns null if the buffer is not a complete, intact result file.
+    private static double[][] decode(MappedByteBuffer buffer) {
+        if(buffer.capacity()<HEADER_BYTES+TRAILER_BYTES)
+            return null;
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int magic=buffer.getInt(0);
+        int rows=buffer.getInt(Integer.BYTES);
+        int cols=buffer.getInt(2*Integer.BYTES);
+        if(magic!=MAGIC||rows<0||cols<0)
+            return null;
+        long payload=(long) rows*cols*Double.BYTES;
+        if(buffer.capacity()!=HEADER_BYTES+payload+TRAILER_BYTES)
+            return null;
+        CRC32 crc=new CRC32();
+        crc.update(buffer.duplicate().limit((int) (HEADER_BYTES+payload)));
+        if(crc.getValue()!=buffer.getLong((int) (HEADER_BYTES+payload)))
+            return null;
+        DoubleBuffer values=buffer.duplicate().position(HEADER_BYTES).limit((int) (HEADER_BYTES+payload))
+                .slice().order(ByteOrder.BIG_ENDIAN).asDoubleBuffer();
+        double[][] matrix=new double[rows][cols];
+        for(double[] row: matrix)
+            values.get(row);
+        return matrix;
+    }
+
+    private Path fileOf(String key) {
+        if(key==null)
+            throw new NullPointerException("key is null");
+        if(key.isEmpty()||!key.chars().allMatch(c->Character.digit(c, 16)!=-1))
+            throw new IllegalArgumentException("Invalid key: "+key);
+        return directory.resolve(key+EXTENSION);
+    }
+
+    private List<Path> listResults() throws IOException {
+        List<Path> files=new ArrayList<>();
+        try(DirectoryStream<Path> stream=Files.newDirectoryStream(directory, "*"+EXTENSION)){
+            for(Path file: stream)
+                files.add(file);
+        }
+        return files;
+    }
+
+    private static long totalSize(List<Path> files) {
+        long total=0;
+        for(Path file: files){
+            try{
+                total+=Files.size(file);
+            }catch (IOException ignored){
+            }
+        }
+        return total;
+    }
+
+    private static void touch(Path file) {
+        try{
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        }catch (IOException ignored){
+        }
+    }
+
+    private static boolean delete(Path file) {
+        try{
+            return Files.deleteIfExists(file);
+        }catch (IOException e){
+            return false;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getCorrupted() {
+        return corrupted.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    //@POST: returns a one-line summary of the store counters
+    public String getReport() {
+        return String.format("Result store %s: %d/%d bytes, hits: %d, misses: %d, corrupted: %d, evictions: %d%n",
+                directory, getBytes(), maxBytes, getHits(), getMisses(), getCorrupted(), getEvictions());
+    }
+}
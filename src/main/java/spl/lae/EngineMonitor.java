@@ -0,0 +1,128 @@
+package spl.lae;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Exposes a LinearAlgebraEngine to JMX tooling: work counters, operand lock and result
+ * cache statistics, and the row chunking, Strassen and lock instrumentation settings
+ * as writable attributes.
+ */
+//@INV: engine!=null
+public class EngineMonitor implements LinearAlgebraEngineMXBean {
+
+    private final LinearAlgebraEngine engine;
+
+    //@PRE: engine!=null
+    public EngineMonitor(LinearAlgebraEngine engine) {
+        if(engine==null)
+            throw new NullPointerException("engine is null");
+        this.engine=engine;
+    }
+
+    //@PRE: engine!=null & name is a valid ObjectName key value
+    //@POST: engine is visible as spl.lae:type=LinearAlgebraEngine,name=<name> on the platform MBean server
+    public static ObjectName register(LinearAlgebraEngine engine, String name) {
+        try{
+            ObjectName objectName=new ObjectName("spl.lae:type=LinearAlgebraEngine,name="+name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new EngineMonitor(engine), objectName);
+            return objectName;
+        }catch (JMException e){
+            throw new IllegalStateException("Failed to register engine MBean "+name, e);
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return engine.isClosed();
+    }
+
+    @Override
+    public long getNodesResolved() {
+        return engine.getNodesResolved();
+    }
+
+    @Override
+    public long getFlopsExecuted() {
+        return engine.getFlopsExecuted();
+    }
+
+    @Override
+    public long getBytesMaterialized() {
+        return engine.getBytesMaterialized();
+    }
+
+    @Override
+    public int getRowsPerTask() {
+        return engine.getRowsPerTask();
+    }
+
+    @Override
+    public void setRowsPerTask(int rowsPerTask) {
+        engine.setRowsPerTask(rowsPerTask);
+    }
+
+    @Override
+    public int getStrassenThreshold() {
+        return engine.getStrassen().getThreshold();
+    }
+
+    @Override
+    public void setStrassenThreshold(int threshold) {
+        engine.getStrassen().setThreshold(threshold);
+    }
+
+    @Override
+    public int getStrassenMaxDepth() {
+        return engine.getStrassen().getMaxDepth();
+    }
+
+    @Override
+    public void setStrassenMaxDepth(int maxDepth) {
+        engine.getStrassen().setMaxDepth(maxDepth);
+    }
+
+    @Override
+    public boolean isLockInstrumented() {
+        return engine.isLockInstrumented();
+    }
+
+    @Override
+    public void setLockInstrumented(boolean enabled) {
+        engine.setLockInstrumentation(enabled);
+    }
+
+    @Override
+    public long getLockAcquisitions() {
+        return engine.getLeftLockStats().getAcquisitions()+engine.getRightLockStats().getAcquisitions();
+    }
+
+    @Override
+    public long getContendedLockAcquisitions() {
+        return engine.getLeftLockStats().getContendedAcquisitions()+engine.getRightLockStats().getContendedAcquisitions();
+    }
+
+    @Override
+    public long getLockWaitNanos() {
+        return engine.getLeftLockStats().getWaitNanos()+engine.getRightLockStats().getWaitNanos();
+    }
+
+    @Override
+    public long getCacheHits() {
+        ResultCache cache=engine.getResultCache();
+        return cache==null ? 0 : cache.getHits();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        ResultCache cache=engine.getResultCache();
+        return cache==null ? 0 : cache.getMisses();
+    }
+
+    @Override
+    public long getCacheBytes() {
+        ResultCache cache=engine.getResultCache();
+        return cache==null ? 0 : cache.getBytes();
+    }
+}
@@ -0,0 +1,278 @@
+package spl.lae;
+
+import parser.*;
+import scheduling.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Long-running server evaluating expressions on one warm, shared executor.
+ * Listens on a local TCP port or a Unix-domain socket. Every message in both
+ * directions is a 4-byte big-endian length followed by that many bytes of UTF-8 JSON:
+ * requests use the InputParser format, responses the OutputWriter format.
+ * Clients may pipeline requests; responses on a connection are sent in request order.
+ * At most maxInFlight requests are in flight at once across all connections, counting
+ * from evaluation until the response is written, so results a client does not read
+ * cannot pile up on the server; further requests wait unread in the socket.
+ */
+//@INV: serverChannel!=null & engine!=null & inFlight!=null
+public class EngineServer implements AutoCloseable {
+
+    public static final int MAX_FRAME_BYTES = 256 << 20;
+
+    private static final CompletableFuture<byte[]> END_OF_STREAM = CompletableFuture.completedFuture(null);
+
+    private final ServerSocketChannel serverChannel;
+    private final SocketAddress localAddress;
+    private final LinearAlgebraEngine engine; // reentrant, shared by all requests
+    private final Semaphore inFlight;
+    private final InputParser parser = new InputParser();
+    private final ExecutorService connectionThreads = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private Thread acceptor;
+
+    //@PRE: executor!=null & address!=null & maxInFlight>0
+    //@POST: the server is bound to address, start() begins accepting connections
+    public EngineServer(TiredExecutor executor, SocketAddress address, int maxInFlight) throws IOException {
+        this(executor, address, maxInFlight, null);
+    }
+
+    //@PRE: executor!=null & address!=null & maxInFlight>0
+    //@POST: as above, subtree results are shared between requests through cache unless it is null
+    public EngineServer(TiredExecutor executor, SocketAddress address, int maxInFlight, ResultCache cache) throws IOException {
+        if(executor==null||address==null)
+            throw new NullPointerException("executor and address cant be null");
+        if(maxInFlight<=0)
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        engine=new LinearAlgebraEngine(executor, cache);
+        inFlight=new Semaphore(maxInFlight);
+        if(address instanceof UnixDomainSocketAddress){
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            serverChannel=ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        }else{
+            serverChannel=ServerSocketChannel.open();
+        }
+        serverChannel.bind(address);
+        localAddress=serverChannel.getLocalAddress();
+    }
+
+    //@PRE: spec is "unix:<path>", "<host>:<port>" or "<port>"
+    //@POST: returns the matching socket address, a bare port binds to the loopback interface
+    public static SocketAddress parseAddress(String spec) {
+        if(spec==null)
+            throw new NullPointerException("address is null");
+        if(spec.startsWith("unix:"))
+            return UnixDomainSocketAddress.of(Path.of(spec.substring("unix:".length())));
+        int colon=spec.lastIndexOf(':');
+        try{
+            if(colon==-1)
+                return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(spec));
+            return new InetSocketAddress(spec.substring(0, colon), Integer.parseInt(spec.substring(colon+1)));
+        }catch (NumberFormatException e){
+            throw new IllegalArgumentException("Invalid port in address: "+spec, e);
+        }
+    }
+
+    public SocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    public LinearAlgebraEngine getEngine() {
+        return engine;
+    }
+
+    //@PRE: start was not called before
+    //@POST: connections are accepted on a background thread until close()
+    public synchronized void start() {
+        if(acceptor!=null)
+            throw new IllegalStateException("Server already started");
+        acceptor=new Thread(this::acceptLoop, "engine-server-acceptor");
+        acceptor.start();
+    }
+
+    //@POST: returns once the server is closed
+    public void awaitTermination() throws InterruptedException {
+        Thread t;
+        synchronized(this){
+            t=acceptor;
+        }
+        if(t!=null)
+            t.join();
+    }
+
+    private void acceptLoop() {
+        while(!closed.get()){
+            try{
+                SocketChannel channel=serverChannel.accept();
+                connections.add(channel);
+                connectionThreads.submit(()->serve(channel));
+            }catch (ClosedChannelException e){
+                return;
+            }catch (IOException e){
+                if(!closed.get())
+                    System.err.println("Failed to accept connection: "+e.getMessage());
+            }
+        }
+    }
+
+    // Reads requests as they arrive and queues their pending responses in order;
+    // a writer thread sends each response once it and all earlier ones are done.
+    // A request's permit is released by the writer, after its response is sent or dropped.
+    private void serve(SocketChannel channel) {
+        BlockingQueue<CompletableFuture<byte[]>> responses=new LinkedBlockingQueue<>();
+        Thread writer=Thread.ofVirtual().name("engine-server-writer").start(()->writeResponses(channel, responses));
+        try{
+            byte[] request;
+            while((request=readFrame(channel))!=null){
+                inFlight.acquire();
+                CompletableFuture<byte[]> response=new CompletableFuture<>();
+                responses.add(response);
+                byte[] body=request;
+                Thread.ofVirtual().name("engine-server-request").start(()->{
+                    try{
+                        response.complete(evaluate(body));
+                    }catch (RuntimeException e){
+                        response.completeExceptionally(e);
+                    }
+                });
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }catch (IOException e){
+            if(!closed.get())
+                System.err.println("Connection failed: "+e.getMessage());
+        }finally{
+            responses.add(END_OF_STREAM);
+            try{
+                writer.join();
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            connections.remove(channel);
+            closeQuietly(channel);
+        }
+    }
+
+    // Once a write fails the channel is closed, but the writer keeps draining the queue
+    // so every remaining request still gives its permit back when it finishes.
+    private void writeResponses(SocketChannel channel, BlockingQueue<CompletableFuture<byte[]>> responses) {
+        boolean open=true;
+        try{
+            while(true){
+                CompletableFuture<byte[]> response=responses.take();
+                if(response==END_OF_STREAM)
+                    return;
+                try{
+                    byte[] frame=response.get();
+                    if(open)
+                        writeFrame(channel, frame);
+                }catch (ExecutionException|IOException e){
+                    open=false;
+                    closeQuietly(channel);
+                }finally{
+                    inFlight.release();
+                }
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] evaluate(byte[] request) {
+        try{
+            ComputationNode root=parser.parse(request);
+            return OutputWriter.toBytes(engine.run(root).getMatrix());
+        }catch (Throwable t){
+            try{
+                return OutputWriter.toBytes(t.getMessage()==null ? t.toString() : t.getMessage());
+            }catch (IOException e){
+                throw new RuntimeException("Failed to serialize error response", e);
+            }
+        }
+    }
+
+    //@POST: returns the next frame's payload, or null if the channel reached end of stream between frames
+    public static byte[] readFrame(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header=ByteBuffer.allocate(Integer.BYTES);
+        if(!readFully(channel, header, true))
+            return null;
+        int length=header.flip().getInt();
+        if(length<0||length>MAX_FRAME_BYTES)
+            throw new IOException("Invalid frame length: "+length);
+        ByteBuffer body=ByteBuffer.allocate(length);
+        readFully(channel, body, false);
+        return body.array();
+    }
+
+    //@PRE: payload!=null
+    public static void writeFrame(WritableByteChannel channel, byte[] payload) throws IOException {
+        ByteBuffer frame=ByteBuffer.allocate(Integer.BYTES+payload.length);
+        frame.putInt(payload.length).put(payload).flip();
+        while(frame.hasRemaining())
+            channel.write(frame);
+    }
+
+    private static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer, boolean eofAllowed) throws IOException {
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer)==-1){
+                if(eofAllowed&&buffer.position()==0)
+                    return false;
+                throw new IOException("Connection closed in the middle of a frame");
+            }
+        }
+        return true;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try{
+            channel.close();
+        }catch (IOException ignored){
+        }
+    }
+
+    //@POST: no new connections are accepted, open connections are closed, the engine is closed
+    //The shared executor is left running
+    @Override
+    public void close() {
+        if(!closed.compareAndSet(false, true))
+            return;
+        try{
+            serverChannel.close();
+        }catch (IOException ignored){
+        }
+        for(SocketChannel channel: connections)
+            closeQuietly(channel);
+        connectionThreads.shutdown();
+        engine.close();
+        if(localAddress instanceof UnixDomainSocketAddress){
+            try{
+                Files.deleteIfExists(((UnixDomainSocketAddress) localAddress).getPath());
+            }catch (IOException ignored){
+            }
+        }
+    }
+}
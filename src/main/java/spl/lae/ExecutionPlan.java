@@ -0,0 +1,247 @@
+package spl.lae;
+
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Execution plan of a computation tree, built from shape inference alone: nothing is computed.
+ * Lists the nodes in the order the engine resolves them, with the kernel the engine would
+ * choose, how the work is partitioned into executor tasks, estimated FLOPs and buffer sizes.
+ * Mirrors the kernel selection of LinearAlgebraEngine for the given settings; the result cache
+ * is not consulted, so every node is planned as computed.
+ */
+//@INV: steps!=null & threads>0 & rowsPerTask>0
+public class ExecutionPlan {
+
+    /** One node resolved by the engine. Sizes are in bytes. */
+    public static class Step {
+        public final int index; // 1-based evaluation order
+        public final ComputationNodeType type;
+        public final List<NodeShape> operands;
+        public final NodeShape result;
+        public final String kernel;
+        public final String partitioning;
+        public final long tasks;
+        public final long workingBytes; // operand copies loaded for this step plus its result
+        Step(int index, ComputationNodeType type, List<NodeShape> operands, NodeShape result,
+             String kernel, String partitioning, long tasks, long workingBytes) {
+            this.index=index;
+            this.type=type;
+            this.operands=operands;
+            this.result=result;
+            this.kernel=kernel;
+            this.partitioning=partitioning;
+            this.tasks=tasks;
+            this.workingBytes=workingBytes;
+        }
+    }
+
+    private final int threads;
+    private final int rowsPerTask;
+    private final int strassenThreshold;
+    private final int strassenMaxDepth;
+    private final List<Step> steps = new ArrayList<>();
+    private long totalFlops;
+    private long totalTasks;
+    private long intermediateBytes;
+    private long peakLiveBytes;
+
+    private ExecutionPlan(int threads, int rowsPerTask, int strassenThreshold, int strassenMaxDepth) {
+        this.threads=threads;
+        this.rowsPerTask=rowsPerTask;
+        this.strassenThreshold=strassenThreshold;
+        this.strassenMaxDepth=strassenMaxDepth;
+    }
+
+    //@PRE: root!=null & threads>0
+    //@POST: returns the plan of root with the engine's default settings
+    //@POST: throws IllegalArgumentException if the tree is not computable
+    public static ExecutionPlan of(ComputationNode root, int threads) {
+        return of(root, threads, 1, StrassenMultiplier.DEFAULT_THRESHOLD, StrassenMultiplier.DEFAULT_MAX_DEPTH);
+    }
+
+    //@PRE: root!=null & threads>0 & rowsPerTask>0
+    //@POST: returns the plan of root for an engine with the given settings, root is not modified
+    //@POST: throws IllegalArgumentException if the tree is not computable
+    public static ExecutionPlan of(ComputationNode root, int threads, int rowsPerTask, int strassenThreshold, int strassenMaxDepth) {
+        if(root==null)
+            throw new NullPointerException("root is null");
+        if(threads<=0||rowsPerTask<=0)
+            throw new IllegalArgumentException("threads and rowsPerTask must be positive");
+        ShapeInference inference=new ShapeInference();
+        inference.infer(root);
+        ExecutionPlan plan=new ExecutionPlan(threads, rowsPerTask, strassenThreshold, strassenMaxDepth);
+        plan.intermediateBytes=inference.getIntermediateBytes();
+        plan.visit(root, inference.getShapes(), new long[1]);
+        return plan;
+    }
+
+    // Post-order, left to right, as findResolvable walks the tree. A step's result stays live until its
+    // parent is computed; live[0] tracks the bytes of results not consumed yet.
+    private void visit(ComputationNode node, Map<ComputationNode, NodeShape> shapes, long[] live) {
+        if(node.getNodeType()==ComputationNodeType.MATRIX)
+            return;
+        List<NodeShape> operands=new ArrayList<>();
+        long operandBytes=0, consumed=0;
+        for(ComputationNode child: node.getChildren()){
+            visit(child, shapes, live);
+            NodeShape shape=shapes.get(child);
+            operands.add(shape);
+            operandBytes+=shape.getBytes();
+            if(child.getNodeType()!=ComputationNodeType.MATRIX)
+                consumed+=shape.getBytes();
+        }
+        NodeShape result=shapes.get(node);
+        Step step=plan(steps.size()+1, node, operands, result, operandBytes+result.getBytes());
+        steps.add(step);
+        totalFlops+=result.getFlops();
+        totalTasks+=step.tasks;
+        peakLiveBytes=Math.max(peakLiveBytes, live[0]+step.workingBytes);
+        live[0]+=result.getBytes()-consumed;
+    }
+
+    private Step plan(int index, ComputationNode node, List<NodeShape> operands, NodeShape result, long workingBytes) {
+        ComputationNodeType type=node.getNodeType();
+        NodeShape first=operands.get(0);
+        switch (type) {
+            case NEGATE:
+            case TRANSPOSE: {
+                long tasks=rowTasks(first.getRows());
+                return new Step(index, type, operands, result, "row-parallel "+type.name().toLowerCase(),
+                        rowPartitioning(first.getRows()), tasks, workingBytes);
+            }
+            case ADD: {
+                long passes=operands.size()-1;
+                return new Step(index, type, operands, result, "row-parallel add, "+passes+" pass(es)",
+                        rowPartitioning(first.getRows()), passes*rowTasks(first.getRows()), workingBytes);
+            }
+            case MULTIPLY: {
+                List<String> kernels=new ArrayList<>();
+                long tasks=0;
+                int rows=first.getRows();
+                int inner=first.getCols();
+                for(int i=1; i<operands.size(); i++){
+                    NodeShape next=operands.get(i);
+                    tasks+=product(rows, inner, next.getCols(), kernels);
+                    inner=next.getCols();
+                }
+                return new Step(index, type, operands, result, String.join(", ", kernels),
+                        productPartitioning(kernels, rows), tasks, workingBytes);
+            }
+            case POWER: {
+                int n=first.getRows();
+                int products=ShapeInference.powerMultiplies(node.getExponent());
+                List<String> kernels=new ArrayList<>();
+                long tasks=0;
+                for(int i=0; i<products; i++)
+                    tasks+=product(n, n, n, kernels);
+                String kernel=products==0 ? "none (copy or identity)"
+                        : "repeated squaring, "+products+" x "+kernels.get(0);
+                return new Step(index, type, operands, result, kernel,
+                        productPartitioning(kernels, n), tasks, workingBytes);
+            }
+            case SOLVE:
+            case INVERSE: {
+                int n=first.getRows();
+                int rhs=type==ComputationNodeType.SOLVE ? operands.get(1).getCols() : n;
+                int block=LuDecomposition.DEFAULT_BLOCK_SIZE;
+                long updates=0;
+                for(int k1=block; k1<n; k1+=block)
+                    updates+=ceilDiv(n-k1, block);
+                long solves=ceilDiv(rhs, LuDecomposition.SOLVE_COLUMNS_PER_TASK);
+                return new Step(index, type, operands, result, "blocked LU (block "+block+") + substitution",
+                        updates+" trailing-update tiles of "+block+" rows, "+solves+" column blocks of "+LuDecomposition.SOLVE_COLUMNS_PER_TASK,
+                        updates+solves, workingBytes+(long) n*n*Double.BYTES);
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported node type: "+type);
+        }
+    }
+
+    // Adds the kernel of one rows x inner times inner x cols product and returns its task count.
+    private long product(int rows, int inner, int cols, List<String> kernels) {
+        boolean square=rows==inner&&inner==cols;
+        int depth=square&&strassenMaxDepth>0 ? StrassenMultiplier.depthFor(rows, strassenThreshold, strassenMaxDepth) : 0;
+        if(depth>0){
+            kernels.add("strassen-winograd (depth "+depth+")");
+            return 7;
+        }
+        kernels.add("row-parallel vecMatMul");
+        return rowTasks(rows);
+    }
+
+    private String productPartitioning(List<String> kernels, int rows) {
+        if(kernels.isEmpty())
+            return "none";
+        boolean strassen=kernels.get(0).startsWith("strassen");
+        return strassen ? "7 top-level products per multiplication" : rowPartitioning(rows);
+    }
+
+    private String rowPartitioning(int rows) {
+        return rows+" rows, "+rowsPerTask+" per task";
+    }
+
+    private long rowTasks(int rows) {
+        return ceilDiv(rows, rowsPerTask);
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return (a+b-1)/b;
+    }
+
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    public long getTotalFlops() {
+        return totalFlops;
+    }
+
+    public long getTotalTasks() {
+        return totalTasks;
+    }
+
+    //@POST: returns the total size of all step results in bytes
+    public long getIntermediateBytes() {
+        return intermediateBytes;
+    }
+
+    //@POST: returns the most bytes held at once by unconsumed results and the current step's working set
+    public long getPeakLiveBytes() {
+        return peakLiveBytes;
+    }
+
+    //@POST: returns a human readable plan with one line per step and a total line
+    public String format() {
+        StringBuilder out=new StringBuilder();
+        out.append(String.format("Plan for %d threads (rows per task: %d, Strassen threshold: %d, max depth: %d)%n",
+                threads, rowsPerTask, strassenThreshold, strassenMaxDepth));
+        for(Step step: steps){
+            List<String> shapes=new ArrayList<>();
+            for(NodeShape operand: step.operands)
+                shapes.add(operand.getRows()+"x"+operand.getCols());
+            out.append(String.format("#%d %s %s -> %dx%d%n", step.index, step.type, String.join(", ", shapes),
+                    step.result.getRows(), step.result.getCols()));
+            out.append(String.format("    kernel: %s%n    partitioning: %s%n", step.kernel, step.partitioning));
+            out.append(String.format("    tasks: %d, waves: %d, flops: %d, result: %s, working set: %s%n",
+                    step.tasks, ceilDiv(step.tasks, threads), step.result.getFlops(),
+                    size(step.result.getBytes()), size(step.workingBytes)));
+        }
+        out.append(String.format("Total: %d steps, %d tasks, %.3f GFLOP, intermediates %s, peak live %s%n",
+                steps.size(), totalTasks, totalFlops/1e9, size(intermediateBytes), size(peakLiveBytes)));
+        return out.toString();
+    }
+
+    private static String size(long bytes) {
+        if(bytes<1024)
+            return bytes+"B";
+        if(bytes<1024*1024)
+            return String.format("%.1fKB", bytes/1024.0);
+        return String.format("%.2fMB", bytes/(1024.0*1024.0));
+    }
+}
@@ -0,0 +1,126 @@
+package spl.lae;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import parser.ComputationNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional per-node instrumentation for a LinearAlgebraEngine.
+ * Records a NodeProfile for every resolved node and the span of every row task
+ * on the worker thread that ran it, and exports both as Chrome trace-event JSON
+ * (viewable in Perfetto or chrome://tracing): one track per calling thread with
+ * node and phase slices, and one track per worker with task slices.
+ * Safe to share between concurrent computations.
+ */
+//@INV: nodes!=null & tasks!=null
+public class ExecutionProfiler {
+
+    private static final class TaskSpan {
+        final int nodeId;
+        final long threadId;
+        final String threadName;
+        final long start;
+        final long end;
+        TaskSpan(int nodeId, long start, long end) {
+            this.nodeId=nodeId;
+            this.threadId=Thread.currentThread().threadId();
+            this.threadName=Thread.currentThread().getName();
+            this.start=start;
+            this.end=end;
+        }
+    }
+
+    private final long origin = System.nanoTime();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final ConcurrentLinkedQueue<NodeProfile> nodes = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<TaskSpan> tasks = new ConcurrentLinkedQueue<>();
+
+    //@POST: returns nanoseconds since this profiler was created
+    long now() {
+        return System.nanoTime()-origin;
+    }
+
+    //@PRE: node!=null
+    //@POST: returns a profile whose phases are timed from now on
+    NodeProfile beginNode(ComputationNode node) {
+        return new NodeProfile(this, nextId.getAndIncrement(), node, now());
+    }
+
+    void finished(NodeProfile profile) {
+        nodes.add(profile);
+    }
+
+    void taskFinished(NodeProfile profile, long start, long end) {
+        tasks.add(new TaskSpan(profile.getId(), start, end));
+    }
+
+    //@POST: returns the profiles of all completed nodes in completion order
+    public List<NodeProfile> getNodeProfiles() {
+        return new ArrayList<>(nodes);
+    }
+
+    //@POST: returns the number of recorded task spans
+    public int getTaskSpanCount() {
+        return tasks.size();
+    }
+
+    //@POST: writes all recorded nodes and tasks to path as Chrome trace-event JSON
+    public void writeChromeTrace(String path) throws IOException {
+        ObjectMapper mapper=new ObjectMapper();
+        ObjectNode trace=mapper.createObjectNode();
+        ArrayNode events=trace.putArray("traceEvents");
+        Map<Long, String> threads=new LinkedHashMap<>();
+        for(NodeProfile node: nodes){
+            threads.put(node.getThreadId(), node.getThreadName());
+            ObjectNode event=complete(events, node.getNodeType()+" "+node.getResultShape(), "node",
+                    node.getThreadId(), node.getStart(), node.getStart()+node.getTotalTime());
+            ObjectNode args=event.putObject("args");
+            args.put("id", node.getId());
+            args.put("operands", String.join(", ", node.getOperandShapes()));
+            args.put("result", node.getResultShape());
+            for(NodeProfile.Phase phase: NodeProfile.Phase.values())
+                args.put(phase.name().toLowerCase()+"Us", node.getTime(phase)/1000.0);
+            args.put("tasks", node.getTaskCount());
+            for(NodeProfile.Slice slice: node.getSlices())
+                complete(events, slice.phase.name().toLowerCase(), "phase", node.getThreadId(), slice.start, slice.end)
+                        .putObject("args").put("node", node.getId());
+        }
+        for(TaskSpan task: tasks){
+            threads.put(task.threadId, task.threadName);
+            complete(events, "task", "task", task.threadId, task.start, task.end)
+                    .putObject("args").put("node", task.nodeId);
+        }
+        for(Map.Entry<Long, String> thread: threads.entrySet()){
+            ObjectNode event=events.addObject();
+            event.put("name", "thread_name");
+            event.put("ph", "M");
+            event.put("pid", 1);
+            event.put("tid", thread.getKey());
+            event.putObject("args").put("name", thread.getValue());
+        }
+        trace.put("displayTimeUnit", "ms");
+        mapper.writeValue(new File(path), trace);
+    }
+
+    private static ObjectNode complete(ArrayNode events, String name, String category, long threadId, long start, long end) {
+        ObjectNode event=events.addObject();
+        event.put("name", name);
+        event.put("cat", category);
+        event.put("ph", "X");
+        event.put("pid", 1);
+        event.put("tid", threadId);
+        event.put("ts", start/1000.0);
+        event.put("dur", (end-start)/1000.0);
+        return event;
+    }
+}
@@ -0,0 +1,206 @@
+package spl.lae;
+
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the evaluated DAG of an expression so that it can be re-evaluated
+ * after some leaf matrices change, recomputing only the affected ancestors.
+ * Changes are tracked per row: ADD and NEGATE rows depend only on the same rows
+ * of their operands, and the rows of a product depend only on the same rows of
+ * its first operand, so (A+ΔA)B is updated by recomputing just the rows where
+ * ΔA is non-zero. Any other change, or one touching most rows, recomputes the
+ * node in full. Shared subtrees (the same ComputationNode reached twice) are
+ * evaluated once. The original tree is never modified. Not thread-safe.
+ */
+//@INV: root!=null & every node's value is up to date after evaluate()
+public class IncrementalEvaluation {
+
+    private static final class Node {
+        final ComputationNodeType type;
+        final int exponent;
+        final List<Node> children = new ArrayList<>(); // empty for leaves
+        double[][] value;
+        final BitSet changedRows = new BitSet(); // rows changed since the last evaluate(), empty if none
+        Node(ComputationNodeType type, int exponent) {
+            this.type=type;
+            this.exponent=exponent;
+        }
+        int rows() {
+            return value.length;
+        }
+    }
+
+    private final LinearAlgebraEngine engine;
+    private final Node root;
+    private final Map<ComputationNode, Node> nodes = new IdentityHashMap<>();
+    private final List<Node> order = new ArrayList<>(); // children before parents
+    private long recomputedNodes = 0;
+    private long recomputedRows = 0;
+
+    //@PRE: engine!=null & root!=null & root is computable
+    //@POST: the DAG is captured, nothing is computed before the first evaluate()
+    public IncrementalEvaluation(LinearAlgebraEngine engine, ComputationNode root) {
+        if(engine==null||root==null)
+            throw new NullPointerException("engine and root cant be null");
+        new ShapeInference().infer(root);
+        this.engine=engine;
+        this.root=capture(root);
+    }
+
+    private Node capture(ComputationNode source) {
+        Node node=nodes.get(source);
+        if(node!=null)
+            return node;
+        node=new Node(source.getNodeType(), source.getExponent());
+        if(source.getNodeType()==ComputationNodeType.MATRIX){
+            node.value=copy(source.getMatrix());
+        }else{
+            for(ComputationNode child: source.getChildren())
+                node.children.add(capture(child));
+        }
+        nodes.put(source, node);
+        order.add(node);
+        return node;
+    }
+
+    //@PRE: leaf is a MATRIX node of the captured tree & value has the leaf's shape
+    //@POST: leaf holds a copy of value, the changed rows are recomputed by the next evaluate()
+    public void updateLeaf(ComputationNode leaf, double[][] value) {
+        if(leaf==null||value==null)
+            throw new NullPointerException("leaf and value cant be null");
+        Node node=nodes.get(leaf);
+        if(node==null||node.type!=ComputationNodeType.MATRIX)
+            throw new IllegalArgumentException("Not a leaf of this evaluation");
+        if(value.length!=node.rows())
+            throw new IllegalArgumentException("Updated leaf must keep its shape");
+        for(int i=0; i<value.length; i++){
+            if(value[i].length!=node.value[i].length)
+                throw new IllegalArgumentException("Updated leaf must keep its shape");
+            if(!Arrays.equals(value[i], node.value[i])){
+                node.value[i]=value[i].clone();
+                node.changedRows.set(i);
+            }
+        }
+    }
+
+    //@PRE: the engine is not closed
+    //@POST: returns a copy of the root value, recomputing only nodes affected by updateLeaf calls since the last evaluate()
+    public double[][] evaluate() {
+        if(engine.isClosed())
+            throw new IllegalStateException("Engine is closed");
+        for(Node node: order){
+            if(node.type!=ComputationNodeType.MATRIX)
+                refresh(node);
+        }
+        for(Node node: order)
+            node.changedRows.clear();
+        return copy(root.value);
+    }
+
+    private void refresh(Node node) {
+        if(node.value==null){
+            recomputeAll(node);
+            return;
+        }
+        BitSet rows=affectedRows(node);
+        int count=rows.cardinality();
+        if(count==0)
+            return;
+        if(2*count>node.rows())
+            recomputeAll(node);
+        else
+            recomputeRows(node, rows);
+    }
+
+    // Rows of node that depend on a changed operand row; all rows if the dependency is not row-local.
+    private BitSet affectedRows(Node node) {
+        BitSet rows=new BitSet();
+        if(node.type==ComputationNodeType.ADD||node.type==ComputationNodeType.NEGATE){
+            for(Node child: node.children)
+                rows.or(child.changedRows);
+            return rows;
+        }
+        if(node.type==ComputationNodeType.MULTIPLY){
+            for(int i=1; i<node.children.size(); i++){
+                if(!node.children.get(i).changedRows.isEmpty()){
+                    rows.set(0, node.rows());
+                    return rows;
+                }
+            }
+            rows.or(node.children.get(0).changedRows);
+            return rows;
+        }
+        for(Node child: node.children){
+            if(!child.changedRows.isEmpty()){
+                rows.set(0, node.rows());
+                break;
+            }
+        }
+        return rows;
+    }
+
+    private void recomputeAll(Node node) {
+        List<ComputationNode> operands=new ArrayList<>();
+        for(Node child: node.children)
+            operands.add(new ComputationNode(child.value));
+        node.value=compute(node, operands);
+        node.changedRows.set(0, node.rows());
+        recomputedNodes++;
+        recomputedRows+=node.rows();
+    }
+
+    // Computes only the given rows by restricting the row-local operands to them.
+    private void recomputeRows(Node node, BitSet rows) {
+        int[] selected=rows.stream().toArray();
+        List<ComputationNode> operands=new ArrayList<>();
+        for(int i=0; i<node.children.size(); i++){
+            double[][] value=node.children.get(i).value;
+            boolean rowLocal=node.type!=ComputationNodeType.MULTIPLY||i==0;
+            operands.add(new ComputationNode(rowLocal ? selectRows(value, selected) : value));
+        }
+        double[][] partial=compute(node, operands);
+        for(int i=0; i<selected.length; i++)
+            node.value[selected[i]]=partial[i];
+        node.changedRows.or(rows);
+        recomputedNodes++;
+        recomputedRows+=selected.length;
+    }
+
+    private double[][] compute(Node node, List<ComputationNode> operands) {
+        ComputationNode step=new ComputationNode(node.type, operands, node.exponent);
+        engine.loadAndCompute(step);
+        return step.getMatrix();
+    }
+
+    private static double[][] selectRows(double[][] matrix, int[] rows) {
+        double[][] selected=new double[rows.length][];
+        for(int i=0; i<rows.length; i++)
+            selected[i]=matrix[rows[i]];
+        return selected;
+    }
+
+    private static double[][] copy(double[][] matrix) {
+        double[][] copy=new double[matrix.length][];
+        for(int i=0; i<matrix.length; i++)
+            copy[i]=matrix[i].clone();
+        return copy;
+    }
+
+    //@POST: returns the number of node computations, full or partial, since construction
+    public long getRecomputedNodes() {
+        return recomputedNodes;
+    }
+
+    //@POST: returns the number of result rows computed since construction
+    public long getRecomputedRows() {
+        return recomputedRows;
+    }
+}
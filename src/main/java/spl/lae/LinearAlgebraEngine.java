@@ -6,46 +6,315 @@ import scheduling.*;
 
 import java.util.ArrayList;
 import java.util.List;
-//@INV:leftMatrix and rightMatrix are valid SharedMatrix instances and not equals null
-public class LinearAlgebraEngine {
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+//@INV:every workspace is used by at most one computation at a time
+//@INV:a single-shot engine is closed after its first run
+//Persistent engines are reentrant: run and loadAndCompute may be called concurrently on distinct trees
+public class LinearAlgebraEngine implements AutoCloseable {
 
-    private SharedMatrix leftMatrix = new SharedMatrix();
-    private SharedMatrix rightMatrix = new SharedMatrix();
+    private final ConcurrentLinkedQueue<Workspace> workspaces = new ConcurrentLinkedQueue<>(); // idle, reusable
     private TiredExecutor executor;
+    private final boolean persistent; // survives run() until close()
+    private final boolean ownsExecutor; // close() shuts the executor down
+    private final ResultCache cache; // null when results are not cached
+    private final StrassenMultiplier strassen; // large square products
+    private volatile ExecutionProfiler profiler; // null when not profiled
+    private volatile int rowsPerTask = 1; // rows handled by one row-parallel task
+    private final LongAdder nodesResolved = new LongAdder();
+    private final LongAdder flopsExecuted = new LongAdder(); // as estimated by ShapeInference
+    private final LongAdder bytesMaterialized = new LongAdder(); // result buffers of resolved nodes
+    private volatile boolean lockInstrumented = false; // operand vectors count their lock use
+    private final LockStats leftLocks = new LockStats(); // row operands, written by the tasks
+    private final LockStats rightLocks = new LockStats(); // second operands, only read
+    private volatile AllocationStats allocations; // null when allocations are not counted
+    private final AtomicBoolean closed = new AtomicBoolean(false);
     //@PRE:numThreads>0
     //@POST:this.executor is initialized to a new TiredExecutor(numThreads)
+    //@POST:the engine is single-shot, run() shuts the executor down
     public LinearAlgebraEngine(int numThreads) {
+        this(numThreads, false);
+    }
+    //@PRE:numThreads>0
+    //@POST:this.executor is initialized to a new TiredExecutor(numThreads)
+    //@POST:if persistent, the executor survives every run() until close() is called
+    public LinearAlgebraEngine(int numThreads, boolean persistent) {
         // TODO: create executor with given thread count
         if(numThreads<=0)
             throw new IllegalArgumentException("numThreads must be positive");
         executor=new TiredExecutor(numThreads);
+        this.persistent=persistent;
+        this.ownsExecutor=true;
+        this.cache=null;
+        this.strassen=new StrassenMultiplier(executor);
+    }
+    //@PRE:executor!=null
+    //@POST:the engine is persistent and runs on the given shared executor
+    //@POST:close() leaves the executor running, its owner shuts it down
+    public LinearAlgebraEngine(TiredExecutor executor) {
+        this(executor, null);
+    }
+    //@PRE:executor!=null
+    //@POST:as LinearAlgebraEngine(executor), subtree results are looked up in and added to cache unless it is null
+    public LinearAlgebraEngine(TiredExecutor executor, ResultCache cache) {
+        if(executor==null)
+            throw new NullPointerException("executor is null");
+        this.executor=executor;
+        this.persistent=true;
+        this.ownsExecutor=false;
+        this.cache=cache;
+        this.strassen=new StrassenMultiplier(executor);
     }
-    //@PRE:computationRoot!=null
+    //@PRE:computationRoot!=null & engine not closed
     //@POST:returned node type is Matrix. Computatuion tree fully resolved
+    //@POST:dimension mismatches are rejected by shape inference before any task is submitted
+    //@POST:a tree with a result buffer larger than the maximum heap is rejected before any task is submitted
+    //@POST:a single-shot engine is closed
+    //@POST:with a cache, cached subtrees are not recomputed and every computed node is cached
     public ComputationNode run(ComputationNode computationRoot) {
         // TODO: resolve computation tree step by step until final matrix is produced
         if(computationRoot==null)
             throw new NullPointerException("computationRoot is null");
+        if(closed.get())
+            throw new IllegalStateException("Engine is closed");
          try{
+            ShapeInference inference=new ShapeInference();
+            inference.infer(computationRoot);
+            HeapLimit.requireHeapFor(inference.getLargestBufferBytes());
+            SubtreeKeys keys=null;
+            if(cache!=null){
+                keys=new SubtreeKeys();
+                keys.compute(computationRoot);
+                resolveCached(computationRoot, keys);
+            }
             while(computationRoot.getNodeType() != ComputationNodeType.MATRIX){
                 ComputationNode resolve=computationRoot.findResolvable();
                 if(resolve==null)
                     throw new IllegalStateException("Node not found");
                 loadAndCompute(resolve);
+                if(keys!=null)
+                    cache.put(keys.keyOf(resolve), resolve.getMatrix());
             }
             return computationRoot;
         }finally{
-            try{
-                executor.shutdown();
-            }catch (InterruptedException e){
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Interrupted during executor shutdown", e);
-            }
+            if(!persistent)
+                close();
         }
     }
+    // Top-down, so the largest cached subtree wins and nothing below it is looked up.
+    private void resolveCached(ComputationNode node, SubtreeKeys keys) {
+        if(node.getNodeType()==ComputationNodeType.MATRIX)
+            return;
+        double[][] hit=cache.get(keys.keyOf(node));
+        if(hit!=null){
+            node.resolve(hit);
+            return;
+        }
+        for(ComputationNode child: node.getChildren())
+            resolveCached(child, keys);
+    }
+    //@PRE:None
+    //@POST:engine is closed, an owned executor is shut down. Repeated calls have no effect
+    @Override
+    public void close() {
+        if(!closed.compareAndSet(false, true))
+            return;
+        if(!ownsExecutor)
+            return;
+        try{
+            executor.shutdown();
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during executor shutdown", e);
+        }
+    }
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    public ResultCache getResultCache() {
+        return cache;
+    }
+
+    //@POST:returns the Strassen planner settings of this engine, changes apply to later products
+    public StrassenMultiplier getStrassen() {
+        return strassen;
+    }
+    //@POST:every node resolved from now on is recorded by profiler, null turns profiling off
+    public void setProfiler(ExecutionProfiler profiler) {
+        this.profiler=profiler;
+    }
+
+    public ExecutionProfiler getProfiler() {
+        return profiler;
+    }
+
+    public int getRowsPerTask() {
+        return rowsPerTask;
+    }
+    //@PRE:rowsPerTask>0
+    //@POST:row-parallel operations started from now on group rowsPerTask rows into each task
+    public void setRowsPerTask(int rowsPerTask) {
+        if(rowsPerTask<=0)
+            throw new IllegalArgumentException("rowsPerTask must be positive");
+        this.rowsPerTask=rowsPerTask;
+    }
+
+    public long getNodesResolved() {
+        return nodesResolved.sum();
+    }
+
+    public long getFlopsExecuted() {
+        return flopsExecuted.sum();
+    }
+
+    public long getBytesMaterialized() {
+        return bytesMaterialized.sum();
+    }
+    //@POST:operands of nodes computed from now on count lock acquisitions, contention and wait time
+    //Costs a look at the lock state per acquisition and a clock read per contended one, so it is off by default
+    public void setLockInstrumentation(boolean enabled) {
+        this.lockInstrumented=enabled;
+    }
+
+    public boolean isLockInstrumented() {
+        return lockInstrumented;
+    }
+
+    public LockStats getLeftLockStats() {
+        return leftLocks;
+    }
+
+    public LockStats getRightLockStats() {
+        return rightLocks;
+    }
+
+    //@POST:allocations of every node resolved from now on are added to allocations, null turns counting off
+    public void setAllocationStats(AllocationStats allocations) {
+        this.allocations=allocations;
+    }
+
+    public AllocationStats getAllocationStats() {
+        return allocations;
+    }
+
+    //@POST:returns one line per operand side, empty when lock instrumentation was never enabled
+    public String getLockReport() {
+        if(leftLocks.getAcquisitions()==0&&rightLocks.getAcquisitions()==0&&!lockInstrumented)
+            return "";
+        return "Left operand locks: "+leftLocks+"\n"+"Right operand locks: "+rightLocks+"\n";
+    }
+    //@PRE:root!=null
+    //@POST:returns the plan this engine would follow for root with its current settings, nothing is computed
+    public ExecutionPlan explain(ComputationNode root) {
+        return ExecutionPlan.of(root, executor.getWorkerCount(), rowsPerTask, strassen.getThreshold(), strassen.getMaxDepth());
+    }
+    //@PRE:root!=null & root is computable
+    //@POST:returns an evaluation of root on this engine that recomputes only what leaf updates affect
+    public IncrementalEvaluation incremental(ComputationNode root) {
+        return new IncrementalEvaluation(this, root);
+    }
     //@PRE:node!=null & node.getNodeType()!=null & node.getChildren()!=null
-    //@POST:node resolved exactly once
+    //@POST:node resolved exactly once, using a workspace no concurrent computation shares
     public void loadAndCompute(ComputationNode node) {
+        Workspace workspace=acquireWorkspace();
+        boolean counted=lockInstrumented;
+        workspace.setLockStats(counted ? leftLocks : null, counted ? rightLocks : null);
+        ExecutionProfiler current=profiler;
+        NodeProfile profile=current==null ? null : current.beginNode(node);
+        workspace.setProfile(profile);
+        AllocationStats allocationStats=allocations;
+        LongAdder allocated=allocationStats==null ? null : new LongAdder();
+        workspace.setAllocationCounter(allocated);
+        long allocatedBefore=allocated==null ? 0 : AllocationStats.currentThreadAllocatedBytes();
+        ComputationNodeType type=node.getNodeType();
+        int exponent=node.getExponent();
+        NodeShape[] operands=operandDimensions(node);
+        NodeComputeEvent event=new NodeComputeEvent();
+        event.begin();
+        try{
+            compute(node, workspace);
+            double[][] result=node.getMatrix();
+            if(profile!=null)
+                profile.end(result);
+            NodeShape shape=estimate(type, operands, exponent);
+            if(event.shouldCommit()){
+                describe(type, operands, shape, event);
+                event.commit();
+            }
+            nodesResolved.increment();
+            if(allocated!=null){
+                // virtual threads have no allocation counter, only the worker side is known then
+                boolean callerCounted=allocatedBefore>=0;
+                if(callerCounted)
+                    allocated.add(AllocationStats.currentThreadAllocatedBytes()-allocatedBefore);
+                allocationStats.record(type, allocated.sum(), callerCounted);
+            }
+            if(shape!=null)
+                flopsExecuted.add(shape.getFlops());
+            bytesMaterialized.add((long) result.length*(result.length==0 ? 0 : result[0].length)*Double.BYTES);
+        }finally{
+            releaseWorkspace(workspace);
+        }
+    }
+
+    // Taken before compute, which replaces the children by the result. Reads only the outer dimensions,
+    // the operands are validated by compute itself.
+    private static NodeShape[] operandDimensions(ComputationNode node) {
+        List<ComputationNode> children=node.getChildren();
+        NodeShape[] operands=new NodeShape[children==null ? 0 : children.size()];
+        for(int i=0; i<operands.length; i++){
+            double[][] operand=children.get(i).getMatrix();
+            int rows=operand==null ? 0 : operand.length;
+            int cols=rows==0||operand[0]==null ? 0 : operand[0].length;
+            operands[i]=new NodeShape(ComputationNodeType.MATRIX, rows, cols, 0);
+        }
+        return operands;
+    }
+
+    // Null if compute accepted operands the inference rules reject, such as empty matrices of different widths.
+    private static NodeShape estimate(ComputationNodeType type, NodeShape[] operands, int exponent) {
+        try{
+            return ShapeInference.nodeShape(type, operands, exponent);
+        }catch (IllegalArgumentException e){
+            return null;
+        }
+    }
+
+    private static void describe(ComputationNodeType type, NodeShape[] operands, NodeShape shape, NodeComputeEvent event) {
+        event.nodeType=String.valueOf(type);
+        StringBuilder dimensions=new StringBuilder();
+        for(NodeShape operand: operands){
+            if(dimensions.length()>0)
+                dimensions.append(", ");
+            dimensions.append(operand.getRows()).append('x').append(operand.getCols());
+        }
+        event.operands=dimensions.toString();
+        if(shape==null)
+            return;
+        event.rows=shape.getRows();
+        event.cols=shape.getCols();
+        event.flops=shape.getFlops();
+    }
+
+    private Workspace acquireWorkspace() {
+        Workspace workspace=workspaces.poll();
+        return workspace==null ? new Workspace() : workspace;
+    }
+
+    private void releaseWorkspace(Workspace workspace) {
+        workspace.clear();
+        workspaces.offer(workspace);
+    }
+
+    private void compute(ComputationNode node, Workspace workspace) {
         // TODO: load operand matrices
         // TODO: create compute tasks & submit tasks to executor
         if(node==null)
@@ -56,6 +325,8 @@ public class LinearAlgebraEngine {
         List<ComputationNode> children=node.getChildren();
         if(children==null)
             throw new IllegalStateException("Children list is null");
+        SharedMatrix leftMatrix=workspace.getLeftMatrix();
+        SharedMatrix rightMatrix=workspace.getRightMatrix();
         if (type==ComputationNodeType.NEGATE){
             if(children.size()!=1)
                 throw new IllegalArgumentException("Expected exactly one operand");
@@ -63,7 +334,9 @@ public class LinearAlgebraEngine {
             if(mat==null)
                 throw new IllegalStateException("matrix is null");
             leftMatrix.loadRowMajor(mat);
-            executor.submitAll(createNegateTasks());
+            workspace.mark(NodeProfile.Phase.LOAD);
+            executor.submitAll(workspace.instrumented(createNegateTasks(workspace)));
+            workspace.mark(NodeProfile.Phase.COMPUTE);
             node.resolve(leftMatrix.readRowMajor());
             return;
         }
@@ -74,7 +347,9 @@ public class LinearAlgebraEngine {
             if(mat == null)
                 throw new IllegalStateException("matrix is null");
             leftMatrix.loadRowMajor(mat);
-            executor.submitAll(createTransposeTasks());
+            workspace.mark(NodeProfile.Phase.LOAD);
+            executor.submitAll(workspace.instrumented(createTransposeTasks(workspace)));
+            workspace.mark(NodeProfile.Phase.COMPUTE);
             node.resolve(leftMatrix.readRowMajor());
             return;
         }
@@ -92,8 +367,11 @@ public class LinearAlgebraEngine {
                     throw new IllegalArgumentException("Matrix dimension mismatch for ADD");
                 leftMatrix.loadRowMajor(acc);
                 rightMatrix.loadRowMajor(next);
-                executor.submitAll(createAddTasks());
+                workspace.mark(NodeProfile.Phase.LOAD);
+                executor.submitAll(workspace.instrumented(createAddTasks(workspace)));
+                workspace.mark(NodeProfile.Phase.COMPUTE);
                 acc=leftMatrix.readRowMajor();
+                workspace.mark(NodeProfile.Phase.READBACK);
             }
             node.resolve(acc);
             return;
@@ -110,91 +388,184 @@ public class LinearAlgebraEngine {
                     throw new NullPointerException("Cant use null");
                 if(acc.length>0 && next.length>0 && acc[0].length!=next.length)
                     throw new IllegalArgumentException("Matrix dimension mismatch for MULTIPLY");
-                leftMatrix.loadRowMajor(acc);
-                rightMatrix.loadColumnMajor(next);
-                executor.submitAll(createMultiplyTasks());
-                acc=leftMatrix.readRowMajor();
+                acc=multiply(acc, next, workspace);
             }
             node.resolve(acc);
             return;
         }
+        if(type==ComputationNodeType.POWER){
+            if(children.size()!=1)
+                throw new IllegalArgumentException("Expected exactly one operand");
+            double[][] base=children.get(0).getMatrix();
+            if(base==null)
+                throw new IllegalStateException("matrix is null");
+            if(base.length>0 && base[0].length!=base.length)
+                throw new IllegalArgumentException("POWER requires a square matrix");
+            double[][] result=power(base, node.getExponent(), workspace);
+            workspace.mark(NodeProfile.Phase.COMPUTE);
+            node.resolve(result);
+            return;
+        }
+        if(type==ComputationNodeType.SOLVE){
+            if(children.size()!=2)
+                throw new IllegalArgumentException("SOLVE expects exactly two operands");
+            double[][] a=children.get(0).getMatrix();
+            double[][] b=children.get(1).getMatrix();
+            if(a==null||b==null)
+                throw new IllegalStateException("matrix is null");
+            double[][] x=LuDecomposition.factor(a, executor, LuDecomposition.DEFAULT_BLOCK_SIZE, workspace::instrumented).solve(b);
+            workspace.mark(NodeProfile.Phase.COMPUTE);
+            node.resolve(x);
+            return;
+        }
+        if(type==ComputationNodeType.INVERSE){
+            if(children.size()!=1)
+                throw new IllegalArgumentException("Expected exactly one operand");
+            double[][] a=children.get(0).getMatrix();
+            if(a==null)
+                throw new IllegalStateException("matrix is null");
+            double[][] inverse=LuDecomposition.factor(a, executor, LuDecomposition.DEFAULT_BLOCK_SIZE, workspace::instrumented).inverse();
+            workspace.mark(NodeProfile.Phase.COMPUTE);
+            node.resolve(inverse);
+            return;
+        }
         throw new IllegalArgumentException("Unsupported node type");
     }
-    //@PRE:leftMatrix!=null & rightMatrix!=null
+    //@PRE:a.cols==b.rows
+    //@POST:returns a*b, by Strassen-Winograd for large square operands, otherwise row-parallel on the executor
+    private double[][] multiply(double[][] a, double[][] b, Workspace workspace) {
+        if(strassen.applies(a, b)){
+            double[][] product=strassen.multiply(a, b, workspace::instrumented);
+            workspace.mark(NodeProfile.Phase.COMPUTE);
+            return product;
+        }
+        workspace.getLeftMatrix().loadRowMajor(a);
+        workspace.getRightMatrix().loadColumnMajor(b);
+        workspace.mark(NodeProfile.Phase.LOAD);
+        executor.submitAll(workspace.instrumented(createMultiplyTasks(workspace)));
+        workspace.mark(NodeProfile.Phase.COMPUTE);
+        double[][] product=workspace.getLeftMatrix().readRowMajor();
+        workspace.mark(NodeProfile.Phase.READBACK);
+        return product;
+    }
+    //@PRE:base is square & exponent>=0
+    //@POST:returns base^exponent using O(log exponent) products, the identity for exponent 0
+    private double[][] power(double[][] base, int exponent, Workspace workspace) {
+        double[][] result=null; // identity until the first set bit
+        double[][] square=base;
+        while(exponent>0){
+            if((exponent&1)==1)
+                result=result==null ? square : multiply(result, square, workspace);
+            exponent>>=1;
+            if(exponent>0)
+                square=multiply(square, square, workspace);
+        }
+        if(result==null){
+            result=new double[base.length][base.length];
+            for(int i=0; i<base.length; i++)
+                result[i][i]=1;
+        }else if(result==base){
+            // exponent 1: a fresh buffer, so the result never aliases its operand
+            double[][] copy=new double[base.length][];
+            for(int i=0; i<base.length; i++)
+                copy[i]=base[i].clone();
+            result=copy;
+        }
+        return result;
+    }
+    // The engine no longer holds operands, so the old no-argument factories have nothing to read.
+    private static UnsupportedOperationException removedTaskFactory(String name) {
+        return new UnsupportedOperationException(name+"() is no longer supported: the engine keeps no operands of its own, "
+                +"load them into a Workspace and call "+name+"(Workspace)");
+    }
+    /** @deprecated the engine keeps no operands, use {@link #createAddTasks(Workspace)} */
+    @Deprecated
     public List<Runnable> createAddTasks(){
+        throw removedTaskFactory("createAddTasks");
+    }
+    /** @deprecated the engine keeps no operands, use {@link #createMultiplyTasks(Workspace)} */
+    @Deprecated
+    public List<Runnable> createMultiplyTasks() {
+        throw removedTaskFactory("createMultiplyTasks");
+    }
+    /** @deprecated the engine keeps no operands, use {@link #createNegateTasks(Workspace)} */
+    @Deprecated
+    public List<Runnable> createNegateTasks() {
+        throw removedTaskFactory("createNegateTasks");
+    }
+    /** @deprecated the engine keeps no operands, use {@link #createTransposeTasks(Workspace)} */
+    @Deprecated
+    public List<Runnable> createTransposeTasks() {
+        throw removedTaskFactory("createTransposeTasks");
+    }
+    //@PRE:workspace!=null
+    public List<Runnable> createAddTasks(Workspace workspace){
         // TODO: return tasks that perform row-wise addition
+        SharedMatrix leftMatrix=workspace.getLeftMatrix();
+        SharedMatrix rightMatrix=workspace.getRightMatrix();
         if(leftMatrix==null||rightMatrix==null)
             throw new NullPointerException("One of the matrix (or more) is null");
-        List<Runnable> tasks=new ArrayList<>();
-        int length=leftMatrix.length();
-        for(int i=0; i<length;i++){
-            final int rowIndex=i;
-            Runnable task=()->{
-                SharedVector rowLeft=leftMatrix.get(rowIndex);
-                SharedVector rowRight=rightMatrix.get(rowIndex);
-                rowLeft.add(rowRight);
-            };
-            tasks.add(task);
-        }
-        return tasks;
+        return createRowTasks(leftMatrix.length(), rowIndex->{
+            SharedVector rowLeft=leftMatrix.get(rowIndex);
+            SharedVector rowRight=rightMatrix.get(rowIndex);
+            rowLeft.add(rowRight);
+        });
     }
-    //@PRE:leftMatrix != null & rightMatrix != null
-    public List<Runnable> createMultiplyTasks() {
+    //@PRE:workspace!=null
+    public List<Runnable> createMultiplyTasks(Workspace workspace) {
         // TODO: return tasks that perform row × matrix multiplication
+        SharedMatrix leftMatrix=workspace.getLeftMatrix();
+        SharedMatrix rightMatrix=workspace.getRightMatrix();
         if(leftMatrix==null || rightMatrix==null)
             throw new NullPointerException("One of the matrix (or more) is null");
-        List<Runnable> tasks=new ArrayList<>();
-        int length=leftMatrix.length();
-        for(int i=0; i<length;i++){
-            final int rowIndex=i;
-            Runnable task=()->{
-                SharedVector rowLeft=leftMatrix.get(rowIndex);
-                rowLeft.vecMatMul(rightMatrix);
-            };
-            tasks.add(task);
-        }
-        return tasks;
+        return createRowTasks(leftMatrix.length(), rowIndex->{
+            SharedVector rowLeft=leftMatrix.get(rowIndex);
+            rowLeft.vecMatMul(rightMatrix);
+        });
     }
-    //@PRE:leftMatrix!=null 
-    public List<Runnable> createNegateTasks() {
+    //@PRE:workspace!=null
+    public List<Runnable> createNegateTasks(Workspace workspace) {
         // TODO: return tasks that negate rows
+        SharedMatrix leftMatrix=workspace.getLeftMatrix();
         if(leftMatrix==null)
             throw new NullPointerException("The matrix is null");
-        List<Runnable> tasks=new ArrayList<>();
-        int length=leftMatrix.length();
-        for(int i=0; i<length;i++){
-            final int rowIndex=i;
-            Runnable task=()->{
-                SharedVector row=leftMatrix.get(rowIndex);
-                row.negate();
-            };
-            tasks.add(task);
-        }
-        return tasks;
+        return createRowTasks(leftMatrix.length(), rowIndex->{
+            SharedVector row=leftMatrix.get(rowIndex);
+            row.negate();
+        });
     }
-    //@PRE:leftMatrix!=null
-    public List<Runnable> createTransposeTasks() {
+    //@PRE:workspace!=null
+    public List<Runnable> createTransposeTasks(Workspace workspace) {
         // TODO: return tasks that transpose rows
+        SharedMatrix leftMatrix=workspace.getLeftMatrix();
         if(leftMatrix==null)
             throw new NullPointerException("The matrix is null");
-        List<Runnable> tasks = new ArrayList<>();
-        int length = leftMatrix.length();
-        for(int i=0; i<length; i++){
-            final int index = i;
-            Runnable task=()->{
-                SharedVector vec = leftMatrix.get(index);
-                vec.transpose();
-            };
-            tasks.add(task);
+        return createRowTasks(leftMatrix.length(), index->{
+            SharedVector vec = leftMatrix.get(index);
+            vec.transpose();
+        });
+    }
+    //@PRE:length>=0 & rowOperation!=null
+    //@POST:returns tasks applying rowOperation to rows 0..length-1, rowsPerTask consecutive rows each
+    private List<Runnable> createRowTasks(int length, IntConsumer rowOperation) {
+        int chunk=rowsPerTask;
+        List<Runnable> tasks=new ArrayList<>((length+chunk-1)/chunk);
+        for(int i=0; i<length; i+=chunk){
+            final int from=i;
+            final int to=Math.min(length, i+chunk);
+            tasks.add(()->{
+                for(int row=from; row<to; row++)
+                    rowOperation.accept(row);
+            });
         }
         return tasks;
     }
     //@PRE:executor!=null
-    //@POST:returns executor.getWorkerReport()
+    //@POST:returns executor.getWorkerReport(), followed by getLockReport()
     public String getWorkerReport() {
         // TODO: return summary of worker activity
         if(executor==null)
             throw new IllegalStateException("Executor not initialized");
-        return executor.getWorkerReport();
+        return executor.getWorkerReport()+getLockReport();
     }
 }
@@ -0,0 +1,44 @@
+package spl.lae;
+
+/**
+ * JMX view of a LinearAlgebraEngine, registered through EngineMonitor.
+ * The writable attributes are live knobs: they apply to operations started after the change.
+ */
+public interface LinearAlgebraEngineMXBean {
+
+    boolean isClosed();
+
+    long getNodesResolved();
+
+    long getFlopsExecuted();
+
+    long getBytesMaterialized();
+
+    int getRowsPerTask();
+
+    void setRowsPerTask(int rowsPerTask);
+
+    int getStrassenThreshold();
+
+    void setStrassenThreshold(int threshold);
+
+    int getStrassenMaxDepth();
+
+    void setStrassenMaxDepth(int maxDepth);
+
+    boolean isLockInstrumented();
+
+    void setLockInstrumented(boolean enabled);
+
+    long getLockAcquisitions();
+
+    long getContendedLockAcquisitions();
+
+    long getLockWaitNanos();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getCacheBytes();
+}
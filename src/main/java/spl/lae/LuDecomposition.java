@@ -0,0 +1,218 @@
+package spl.lae;
+
+import memory.*;
+import scheduling.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Right-looking blocked LU factorization with partial pivoting, PA = LU.
+ * Each step factors a panel of blockSize columns, solves the block row of U,
+ * and updates the trailing matrix with A22 -= L21*U12 as row tiles on the executor,
+ * each tile using the same SharedVector.vecMatMul kernel as the engine's multiply.
+ * Solves run forward and back substitution in parallel over blocks of right-hand-side columns.
+ */
+//@INV: lu is n x n & pivot is a permutation of 0..n-1
+public class LuDecomposition {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    static final int SOLVE_COLUMNS_PER_TASK = 16;
+
+    private final int n;
+    private final double[][] lu; // unit lower L below the diagonal, U on and above it
+    private final int[] pivot; // row i of PA is row pivot[i] of A
+    private final TiredExecutor executor;
+    private final UnaryOperator<List<Runnable>> decorate; // applied to every task list before submission
+
+    private LuDecomposition(double[][] lu, int[] pivot, TiredExecutor executor, UnaryOperator<List<Runnable>> decorate) {
+        this.n=lu.length;
+        this.lu=lu;
+        this.pivot=pivot;
+        this.executor=executor;
+        this.decorate=decorate;
+    }
+
+    //@PRE: a is square & executor!=null & blockSize>0
+    //@POST: returns the factorization of a, a is not modified
+    //@POST: throws IllegalArgumentException if a is singular
+    public static LuDecomposition factor(double[][] a, TiredExecutor executor, int blockSize) {
+        return factor(a, executor, blockSize, UnaryOperator.identity());
+    }
+
+    //@PRE: as above & decorate!=null
+    //@POST: as above, the executor runs the tasks returned by decorate, also in solve and inverse
+    public static LuDecomposition factor(double[][] a, TiredExecutor executor, int blockSize,
+                                         UnaryOperator<List<Runnable>> decorate) {
+        if(a==null||executor==null||decorate==null)
+            throw new NullPointerException("matrix, executor and decorate cant be null");
+        if(blockSize<=0)
+            throw new IllegalArgumentException("blockSize must be positive");
+        int n=a.length;
+        double[][] lu=new double[n][];
+        for(int i=0; i<n; i++){
+            if(a[i].length!=n)
+                throw new IllegalArgumentException("LU factorization requires a square matrix");
+            lu[i]=a[i].clone();
+        }
+        int[] pivot=new int[n];
+        for(int i=0; i<n; i++)
+            pivot[i]=i;
+        for(int k0=0; k0<n; k0+=blockSize){
+            int k1=Math.min(k0+blockSize, n);
+            factorPanel(lu, pivot, k0, k1);
+            if(k1<n){
+                solveBlockRow(lu, k0, k1);
+                executor.submitAll(decorate.apply(createTrailingUpdateTasks(lu, k0, k1, blockSize)));
+            }
+        }
+        return new LuDecomposition(lu, pivot, executor, decorate);
+    }
+
+    // Unblocked LU of columns k0..k1-1 below row k0; row swaps exchange whole rows.
+    private static void factorPanel(double[][] lu, int[] pivot, int k0, int k1) {
+        int n=lu.length;
+        for(int j=k0; j<k1; j++){
+            int p=j;
+            for(int i=j+1; i<n; i++)
+                if(Math.abs(lu[i][j])>Math.abs(lu[p][j]))
+                    p=i;
+            if(lu[p][j]==0.0||!Double.isFinite(lu[p][j]))
+                throw new IllegalArgumentException("Matrix is singular");
+            if(p!=j){
+                double[] row=lu[p];
+                lu[p]=lu[j];
+                lu[j]=row;
+                int index=pivot[p];
+                pivot[p]=pivot[j];
+                pivot[j]=index;
+            }
+            double[] pivotRow=lu[j];
+            for(int i=j+1; i<n; i++){
+                double[] row=lu[i];
+                double l=row[j]/pivotRow[j];
+                row[j]=l;
+                for(int c=j+1; c<k1; c++)
+                    row[c]-=l*pivotRow[c];
+            }
+        }
+    }
+
+    // U12 = L11^-1 * A12, L11 being unit lower triangular.
+    private static void solveBlockRow(double[][] lu, int k0, int k1) {
+        int n=lu.length;
+        for(int j=k0; j<k1; j++){
+            double[] pivotRow=lu[j];
+            for(int i=j+1; i<k1; i++){
+                double[] row=lu[i];
+                double l=row[j];
+                for(int c=k1; c<n; c++)
+                    row[c]-=l*pivotRow[c];
+            }
+        }
+    }
+
+    //@POST: returns one task per tile of rows in k1..n-1, each applying A22 -= L21*U12 to its rows
+    private static List<Runnable> createTrailingUpdateTasks(double[][] lu, int k0, int k1, int tileRows) {
+        int n=lu.length;
+        int width=n-k1;
+        double[][] u12=new double[k1-k0][];
+        for(int j=k0; j<k1; j++){
+            u12[j-k0]=new double[width];
+            System.arraycopy(lu[j], k1, u12[j-k0], 0, width);
+        }
+        SharedMatrix u12Columns=new SharedMatrix();
+        u12Columns.loadColumnMajor(u12);
+        List<Runnable> tasks=new ArrayList<>();
+        for(int t0=k1; t0<n; t0+=tileRows){
+            final int from=t0;
+            final int to=Math.min(t0+tileRows, n);
+            tasks.add(()->{
+                double[][] l21=new double[to-from][];
+                for(int i=from; i<to; i++){
+                    l21[i-from]=new double[k1-k0];
+                    System.arraycopy(lu[i], k0, l21[i-from], 0, k1-k0);
+                }
+                SharedMatrix tile=new SharedMatrix(l21);
+                for(int i=0; i<tile.length(); i++)
+                    tile.get(i).vecMatMul(u12Columns);
+                double[][] product=tile.readRowMajor();
+                for(int i=from; i<to; i++){
+                    double[] row=lu[i];
+                    double[] update=product[i-from];
+                    for(int c=0; c<width; c++)
+                        row[k1+c]-=update[c];
+                }
+            });
+        }
+        return tasks;
+    }
+
+    //@PRE: b has n rows, all of equal length
+    //@POST: returns X with A*X = b
+    public double[][] solve(double[][] b) {
+        if(b==null)
+            throw new NullPointerException("right-hand side is null");
+        if(b.length!=n)
+            throw new IllegalArgumentException("Right-hand side must have "+n+" rows");
+        int m=n==0 ? 0 : b[0].length;
+        double[][] x=new double[n][];
+        for(int i=0; i<n; i++){
+            if(b[pivot[i]].length!=m)
+                throw new IllegalArgumentException("Matrix must be rectangular");
+            x[i]=b[pivot[i]].clone();
+        }
+        List<Runnable> tasks=new ArrayList<>();
+        for(int c0=0; c0<m; c0+=SOLVE_COLUMNS_PER_TASK){
+            final int from=c0;
+            final int to=Math.min(c0+SOLVE_COLUMNS_PER_TASK, m);
+            tasks.add(()->substitute(x, from, to));
+        }
+        executor.submitAll(decorate.apply(tasks));
+        return x;
+    }
+
+    //@POST: returns the inverse of A
+    public double[][] inverse() {
+        double[][] identity=new double[n][n];
+        for(int i=0; i<n; i++)
+            identity[i][i]=1;
+        return solve(identity);
+    }
+
+    // Forward substitution with L, then back substitution with U, on columns from..to-1 of x in place.
+    private void substitute(double[][] x, int from, int to) {
+        for(int i=0; i<n; i++){
+            double[] row=lu[i];
+            double[] xi=x[i];
+            for(int k=0; k<i; k++){
+                double l=row[k];
+                if(l==0.0)
+                    continue;
+                double[] xk=x[k];
+                for(int c=from; c<to; c++)
+                    xi[c]-=l*xk[c];
+            }
+        }
+        for(int i=n-1; i>=0; i--){
+            double[] row=lu[i];
+            double[] xi=x[i];
+            for(int k=i+1; k<n; k++){
+                double u=row[k];
+                if(u==0.0)
+                    continue;
+                double[] xk=x[k];
+                for(int c=from; c<to; c++)
+                    xi[c]-=u*xk[c];
+            }
+            double diagonal=row[i];
+            for(int c=from; c<to; c++)
+                xi[c]/=diagonal;
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+}
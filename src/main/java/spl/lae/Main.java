@@ -1,47 +1,306 @@
 package spl.lae;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import parser.*;
+import scheduling.*;
 
 public class Main {
+    private static final String CACHE_OPTIONS = "[--cache-mb=N] [--cache-dir=<dir>] [--cache-dir-mb=N]";
+    private static final String USAGE =
+            "Usage: java -jar target/lga-1.0.jar <numberOfThreads> <inputFilePath> <outputFilePath> [--trace] [--lock-stats] [--alloc-stats] [--virtual-io] " + CACHE_OPTIONS;
+    private static final String EXPLAIN_USAGE =
+            "Usage: java -jar target/lga-1.0.jar <numberOfThreads> <inputFilePath> [<outputFilePath>] --explain";
+    private static final String BATCH_USAGE =
+            "Usage: java -jar target/lga-1.0.jar --batch <numberOfThreads> (<manifestFile> | <inputDir> <outputDir>) [--concurrency=N] [--alloc-stats] [--virtual-io] " + CACHE_OPTIONS;
+    private static final String SERVE_USAGE =
+            "Usage: java -jar target/lga-1.0.jar --serve <numberOfThreads> (unix:<socketPath> | [<host>:]<port>) [--max-in-flight=N] " + CACHE_OPTIONS;
+
+    // Result cache options shared by all modes; a cache directory alone gets a default memory tier.
+    private static final class CacheOptions {
+        private long memoryMegabytes = -1;
+        private String directory = null;
+        private long directoryMegabytes = 1024;
+
+        boolean accept(String option) {
+            if (option.startsWith("--cache-mb=")) {
+                memoryMegabytes = parseMegabytes(option, "--cache-mb=");
+            } else if (option.startsWith("--cache-dir=")) {
+                directory = option.substring("--cache-dir=".length());
+            } else if (option.startsWith("--cache-dir-mb=")) {
+                directoryMegabytes = parseMegabytes(option, "--cache-dir-mb=");
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        ResultCache build() throws IOException {
+            if (memoryMegabytes == -1 && directory == null) {
+                return null;
+            }
+            DiskResultStore store = directory == null ? null : new DiskResultStore(Path.of(directory), directoryMegabytes << 20);
+            return new ResultCache((memoryMegabytes == -1 ? 64 : memoryMegabytes) << 20, store);
+        }
+
+        private static long parseMegabytes(String option, String name) {
+            long megabytes = Long.parseLong(option.substring(name.length()));
+            if (megabytes <= 0) {
+                throw new IllegalArgumentException(name.substring(0, name.length() - 1) + " must be positive");
+            }
+            return megabytes;
+        }
+    }
+
     public static void main(String[] args) throws IOException {
       // TODO: main
+      if (args != null && args.length > 0 && args[0].equals("--batch")) {
+          runBatch(args);
+          return;
+      }
+      if (args != null && args.length > 0 && args[0].equals("--serve")) {
+          runServer(args);
+          return;
+      }
+      if (args != null && List.of(args).contains("--explain")) {
+          runExplain(args);
+          return;
+      }
       String outputPath = "output.json";
         try {
-            if (args == null || args.length != 3) {
-                throw new IllegalArgumentException(
-                        "Usage: java -jar target/lga-1.0.jar <numberOfThreads> <inputFilePath> <outputFilePath>"
-                );
+            CacheOptions cacheOptions = new CacheOptions();
+            boolean trace = false;
+            boolean lockStats = false;
+            boolean allocStats = false;
+            ExecutionMode mode = ExecutionMode.PLATFORM;
+            int positional = args == null ? 0 : args.length;
+            while (positional > 3 && args[positional - 1].startsWith("--")) {
+                String option = args[--positional];
+                if (option.equals("--trace")) {
+                    trace = true;
+                } else if (option.equals("--lock-stats")) {
+                    lockStats = true;
+                } else if (option.equals("--alloc-stats")) {
+                    allocStats = true;
+                } else if (option.equals("--virtual-io")) {
+                    mode = ExecutionMode.VIRTUAL;
+                } else if (!cacheOptions.accept(option)) {
+                    throw new IllegalArgumentException(USAGE);
+                }
             }
+            if (positional != 3) {
+                throw new IllegalArgumentException(USAGE);
+            }
+
+            int numThreads = parseThreads(args[0]);
 
-            int numThreads;
+            String inputPath = args[1];
+            outputPath = args[2];
+
+            ResultCache cache = cacheOptions.build();
+            ExecutionProfiler profiler = trace ? new ExecutionProfiler() : null;
+            AllocationStats allocations = allocStats ? new AllocationStats() : null;
+            // Reading the input, .mtx operands included, and writing the result are I/O tasks of the executor.
+            TiredExecutor executor = new TiredExecutor(numThreads, mode);
+            LinearAlgebraEngine engine = new LinearAlgebraEngine(executor, cache);
             try {
-                numThreads = Integer.parseInt(args[0]);
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("numberOfThreads must be an integer", e);
+                ComputationNode root = executor.callIo(() -> new InputParser().parse(inputPath));
+                engine.setProfiler(profiler);
+                engine.setLockInstrumentation(lockStats);
+                engine.setAllocationStats(allocations);
+                double[][] result = engine.run(root).getMatrix();
+                String resultPath = outputPath;
+                executor.callIo(() -> {
+                    OutputWriter.write(result, resultPath);
+                    return null;
+                });
+            } finally {
+                engine.close();
+                executor.shutdown();
+            }
+            if (profiler != null) {
+                profiler.writeChromeTrace(outputPath + ".trace.json");
             }
-            if (numThreads <= 0) {
-                throw new IllegalArgumentException("numberOfThreads must be positive");
+            if (lockStats) {
+                System.out.print(engine.getLockReport());
+            }
+            if (allocations != null) {
+                System.out.print(allocations.getReport());
             }
 
-            String inputPath = args[1];
-            outputPath = args[2];
+        } catch (Throwable t) {
+            try {
+                OutputWriter.write(t.getMessage(), outputPath);
+            } catch (Throwable ignored) {
+            }
+            System.err.println(t.getMessage());
+            t.printStackTrace();
+        }
+    }
 
-            InputParser parser = new InputParser();
-            ComputationNode root = parser.parse(inputPath);
+    private static int parseThreads(String arg) {
+        int numThreads;
+        try {
+            numThreads = Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("numberOfThreads must be an integer", e);
+        }
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException("numberOfThreads must be positive");
+        }
+        return numThreads;
+    }
 
-            LinearAlgebraEngine engine = new LinearAlgebraEngine(numThreads);
-            ComputationNode resultNode = engine.run(root);
+    // Prints the execution plan of an input file without computing it; an output path is accepted and ignored.
+    private static void runExplain(String[] args) {
+        try {
+            List<String> positional = new ArrayList<>(List.of(args));
+            positional.remove("--explain");
+            if (positional.size() != 2 && positional.size() != 3) {
+                throw new IllegalArgumentException(EXPLAIN_USAGE);
+            }
+            int numThreads = parseThreads(positional.get(0));
+            ComputationNode root = new InputParser().parse(positional.get(1));
+            System.out.print(ExecutionPlan.of(root, numThreads).format());
+        } catch (Throwable t) {
+            System.err.println(t.getMessage());
+        }
+    }
 
-            OutputWriter.write(resultNode.getMatrix(), outputPath);
+    // Evaluates every job of a manifest or directory on one shared executor and prints a timing summary.
+    private static void runBatch(String[] args) {
+        try {
+            int concurrency = -1;
+            ExecutionMode mode = ExecutionMode.PLATFORM;
+            AllocationStats allocations = null;
+            CacheOptions cacheOptions = new CacheOptions();
+            int positional = args.length;
+            while (positional > 1 && args[positional - 1].startsWith("--")) {
+                String option = args[--positional];
+                if (option.startsWith("--concurrency=")) {
+                    concurrency = Integer.parseInt(option.substring("--concurrency=".length()));
+                } else if (option.equals("--alloc-stats")) {
+                    allocations = new AllocationStats();
+                } else if (option.equals("--virtual-io")) {
+                    mode = ExecutionMode.VIRTUAL;
+                } else if (!cacheOptions.accept(option)) {
+                    throw new IllegalArgumentException(BATCH_USAGE);
+                }
+            }
+            if (positional != 3 && positional != 4) {
+                throw new IllegalArgumentException(BATCH_USAGE);
+            }
+            int numThreads = parseThreads(args[1]);
+            if (concurrency == -1) {
+                concurrency = numThreads;
+            }
+            Path source = Path.of(args[2]);
+            List<BatchRunner.Job> jobs;
+            if (Files.isDirectory(source)) {
+                if (positional != 4) {
+                    throw new IllegalArgumentException(BATCH_USAGE);
+                }
+                jobs = BatchRunner.fromDirectory(source, Path.of(args[3]));
+            } else {
+                if (positional != 3) {
+                    throw new IllegalArgumentException(BATCH_USAGE);
+                }
+                jobs = BatchRunner.fromManifest(source);
+            }
 
+            ResultCache cache = cacheOptions.build();
+            TiredExecutor executor = new TiredExecutor(numThreads, mode);
+            ObjectName executorName = TiredExecutorMonitor.register(executor, "batch");
+            try {
+                long start = System.nanoTime();
+                BatchRunner runner = new BatchRunner(executor, concurrency, cache);
+                runner.setAllocationStats(allocations);
+                List<BatchRunner.JobResult> results = runner.run(jobs);
+                System.out.print(BatchRunner.summary(results, System.nanoTime() - start));
+                if (allocations != null) {
+                    System.out.print(allocations.getReport());
+                }
+                if (cache != null) {
+                    System.out.print(cache.getReport());
+                }
+                System.out.print(executor.getWorkerReport());
+            } finally {
+                unregister(executorName);
+                executor.shutdown();
+            }
         } catch (Throwable t) {
+            System.err.println(t.getMessage());
+            t.printStackTrace();
+        }
+    }
+
+    // Serves expressions over a socket on one warm executor until the process is stopped.
+    // The executor and the engine are registered as MBeans for live monitoring.
+    private static void runServer(String[] args) {
+        try {
+            int maxInFlight = -1;
+            CacheOptions cacheOptions = new CacheOptions();
+            int positional = args.length;
+            while (positional > 1 && args[positional - 1].startsWith("--")) {
+                String option = args[--positional];
+                if (option.startsWith("--max-in-flight=")) {
+                    maxInFlight = Integer.parseInt(option.substring("--max-in-flight=".length()));
+                } else if (!cacheOptions.accept(option)) {
+                    throw new IllegalArgumentException(SERVE_USAGE);
+                }
+            }
+            if (positional != 3) {
+                throw new IllegalArgumentException(SERVE_USAGE);
+            }
+            int numThreads = parseThreads(args[1]);
+            if (maxInFlight == -1) {
+                maxInFlight = numThreads;
+            }
+
+            ResultCache cache = cacheOptions.build();
+            TiredExecutor executor = new TiredExecutor(numThreads);
+            EngineServer server = new EngineServer(executor, EngineServer.parseAddress(args[2]), maxInFlight, cache);
+            ObjectName executorName = TiredExecutorMonitor.register(executor, "server");
+            ObjectName engineName = EngineMonitor.register(server.getEngine(), "server");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                unregister(engineName);
+                unregister(executorName);
+                server.close();
+                try {
+                    executor.shutdown();
+                } catch (InterruptedException ignored) {
+                }
+            }));
             try {
-                OutputWriter.write(t.getMessage(), outputPath);
-            } catch (Throwable ignored) {
+                server.start();
+                System.out.println("Listening on " + server.getLocalAddress());
+                server.awaitTermination();
+            } finally {
+                unregister(engineName);
+                unregister(executorName);
             }
+        } catch (Throwable t) {
             System.err.println(t.getMessage());
             t.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    // Frees an MBean name so the same mode can be started again in this JVM; unregistering twice is harmless.
+    private static void unregister(ObjectName name) {
+        try {
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                return;
+            }
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            System.err.println("Failed to unregister MBean " + name + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package spl.lae;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one node resolved by LinearAlgebraEngine.loadAndCompute.
+ * Its duration covers loading the operands, the compute tasks and reading back the result.
+ */
+@Name("spl.NodeCompute")
+@Label("Node Compute")
+@Category({"Linear Algebra Engine", "Engine"})
+@Description("A computation node resolved into a matrix")
+class NodeComputeEvent extends Event {
+
+    @Label("Node Type")
+    String nodeType;
+
+    @Label("Operands")
+    @Description("Operand dimensions, comma separated")
+    String operands;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int cols;
+
+    @Label("FLOPs")
+    @Description("Estimated floating point operations, as inferred by ShapeInference")
+    long flops;
+}
@@ -0,0 +1,140 @@
+package spl.lae;
+
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timings of one resolved ComputationNode, recorded by an ExecutionProfiler.
+ * Time is split into phases: loading operands into shared matrices, running the
+ * compute tasks, and reading the result back. All times are in nanoseconds.
+ */
+//@INV: loadTime>=0 & computeTime>=0 & readbackTime>=0
+public class NodeProfile {
+
+    public enum Phase { LOAD, COMPUTE, READBACK }
+
+    // One contiguous interval of a single phase, relative to the profiler start.
+    static final class Slice {
+        final Phase phase;
+        final long start;
+        final long end;
+        Slice(Phase phase, long start, long end) {
+            this.phase=phase;
+            this.start=start;
+            this.end=end;
+        }
+    }
+
+    private final ExecutionProfiler profiler;
+    private final int id;
+    private final ComputationNodeType type;
+    private final List<String> operandShapes = new ArrayList<>();
+    private final long threadId;
+    private final String threadName;
+    private final long start;
+    private long end;
+    private long lastMark;
+    private String resultShape = "";
+    private final long[] phaseTimes = new long[Phase.values().length];
+    private final List<Slice> slices = new ArrayList<>();
+    private final AtomicInteger taskCount = new AtomicInteger();
+
+    NodeProfile(ExecutionProfiler profiler, int id, ComputationNode node, long start) {
+        this.profiler=profiler;
+        this.id=id;
+        this.type=node.getNodeType();
+        if(node.getChildren()!=null)
+            for(ComputationNode child: node.getChildren())
+                operandShapes.add(child.getNodeType()==ComputationNodeType.MATRIX ? shapeOf(child.getMatrix()) : "?");
+        this.threadId=Thread.currentThread().threadId();
+        this.threadName=Thread.currentThread().getName();
+        this.start=start;
+        this.lastMark=start;
+    }
+
+    //@POST: the time since the previous mark is attributed to phase
+    void mark(Phase phase) {
+        long now=profiler.now();
+        phaseTimes[phase.ordinal()]+=now-lastMark;
+        slices.add(new Slice(phase, lastMark, now));
+        lastMark=now;
+    }
+
+    //@POST: time since the last mark counts as READBACK, the node is complete
+    void end(double[][] result) {
+        if(profiler.now()>lastMark)
+            mark(Phase.READBACK);
+        end=lastMark;
+        resultShape=shapeOf(result);
+        profiler.finished(this);
+    }
+
+    //@POST: returns tasks that record their spans on the worker threads running them
+    List<Runnable> wrap(List<Runnable> tasks) {
+        List<Runnable> wrapped=new ArrayList<>(tasks.size());
+        for(Runnable task: tasks){
+            taskCount.incrementAndGet();
+            wrapped.add(()->{
+                long taskStart=profiler.now();
+                try{
+                    task.run();
+                }finally{
+                    profiler.taskFinished(this, taskStart, profiler.now());
+                }
+            });
+        }
+        return wrapped;
+    }
+
+    private static String shapeOf(double[][] matrix) {
+        return matrix.length+"x"+(matrix.length==0 ? 0 : matrix[0].length);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public ComputationNodeType getNodeType() {
+        return type;
+    }
+
+    public List<String> getOperandShapes() {
+        return operandShapes;
+    }
+
+    public String getResultShape() {
+        return resultShape;
+    }
+
+    public long getTime(Phase phase) {
+        return phaseTimes[phase.ordinal()];
+    }
+
+    public long getTotalTime() {
+        return end-start;
+    }
+
+    public int getTaskCount() {
+        return taskCount.get();
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    long getThreadId() {
+        return threadId;
+    }
+
+    String getThreadName() {
+        return threadName;
+    }
+
+    List<Slice> getSlices() {
+        return slices;
+    }
+}
@@ -0,0 +1,54 @@
+package spl.lae;
+
+import parser.ComputationNodeType;
+
+/**
+ * Static description of a node's output: its dimensions and the number of
+ * floating point operations needed to produce it from its children.
+ */
+//@INV: rows>=0 & cols>=0 & flops>=0
+public class NodeShape {
+
+    private final ComputationNodeType nodeType;
+    private final int rows;
+    private final int cols;
+    private final long flops;
+
+    //@PRE: nodeType!=null & rows>=0 & cols>=0 & flops>=0
+    public NodeShape(ComputationNodeType nodeType, int rows, int cols, long flops) {
+        if(nodeType==null)
+            throw new NullPointerException("nodeType is null");
+        if(rows<0||cols<0||flops<0)
+            throw new IllegalArgumentException("Shape values must be non-negative");
+        this.nodeType=nodeType;
+        this.rows=rows;
+        this.cols=cols;
+        this.flops=flops;
+    }
+
+    public ComputationNodeType getNodeType() {
+        return nodeType;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public long getFlops() {
+        return flops;
+    }
+
+    //@POST: returns the size in bytes of a dense double buffer holding this output
+    public long getBytes() {
+        return (long) rows * cols * Double.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + cols;
+    }
+}
@@ -0,0 +1,152 @@
+package spl.lae;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of resolved matrices keyed by SubtreeKeys.
+ * Entries are evicted least recently used first once their total size exceeds
+ * the byte budget; a matrix larger than the whole budget is never stored.
+ * Matrices are copied on the way in and out, so callers may modify what they get.
+ * An optional DiskResultStore acts as a second tier: results are written through to it,
+ * and memory misses are looked up there and promoted back into memory.
+ * Safe to share between engines and threads.
+ */
+//@INV: 0<=bytes<=maxBytes
+public class ResultCache {
+
+    private final long maxBytes;
+    private final DiskResultStore store; // null when there is no disk tier
+    private final LinkedHashMap<String, double[][]> entries = new LinkedHashMap<>(16, 0.75f, true); // access order
+    private long bytes = 0;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    //@PRE: maxBytes>0
+    public ResultCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    //@PRE: maxBytes>0
+    //@POST: store, if not null, is consulted on memory misses and receives every put
+    public ResultCache(long maxBytes, DiskResultStore store) {
+        if(maxBytes<=0)
+            throw new IllegalArgumentException("maxBytes must be positive");
+        this.maxBytes=maxBytes;
+        this.store=store;
+    }
+
+    //@PRE: key!=null
+    //@POST: returns a copy of the cached matrix, or null if neither tier holds it
+    public double[][] get(String key) {
+        double[][] matrix;
+        synchronized(this){
+            matrix=entries.get(key);
+        }
+        if(matrix!=null){
+            hits.incrementAndGet();
+            return copy(matrix);
+        }
+        matrix=store==null ? null : store.get(key);
+        if(matrix==null){
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        putInMemory(key, copy(matrix));
+        return matrix;
+    }
+
+    //@PRE: key!=null & matrix!=null
+    //@POST: matrix is cached under key unless it exceeds the budget, older entries are evicted to make room
+    //@POST: matrix is written to the disk tier if any
+    public void put(String key, double[][] matrix) {
+        if(key==null||matrix==null)
+            throw new NullPointerException("key and matrix cant be null");
+        if(store!=null)
+            store.put(key, matrix);
+        if(sizeOf(matrix)<=maxBytes)
+            putInMemory(key, copy(matrix));
+    }
+
+    private void putInMemory(String key, double[][] stored) {
+        long size=sizeOf(stored);
+        if(size>maxBytes)
+            return;
+        synchronized(this){
+            double[][] previous=entries.put(key, stored);
+            if(previous!=null)
+                bytes-=sizeOf(previous);
+            bytes+=size;
+            Iterator<Map.Entry<String, double[][]>> eldest=entries.entrySet().iterator();
+            while(bytes>maxBytes){
+                Map.Entry<String, double[][]> entry=eldest.next();
+                bytes-=sizeOf(entry.getValue());
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes=0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public DiskResultStore getStore() {
+        return store;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    //@POST: returns a summary of the cache counters, with a second line for the disk tier if any
+    public String getReport() {
+        String report=String.format("Result cache: %d entries, %d/%d bytes, hits: %d, misses: %d, evictions: %d%n",
+                size(), getBytes(), maxBytes, getHits(), getMisses(), getEvictions());
+        return store==null ? report : report+store.getReport();
+    }
+
+    // Payload plus per-row array headers, close to what the JVM actually holds.
+    static long sizeOf(double[][] matrix) {
+        long size=16+(long) matrix.length*8;
+        for(double[] row: matrix)
+            size+=16+(long) row.length*Double.BYTES;
+        return size;
+    }
+
+    private static double[][] copy(double[][] matrix) {
+        double[][] copy=new double[matrix.length][];
+        for(int i=0; i<matrix.length; i++)
+            copy[i]=matrix[i].clone();
+        return copy;
+    }
+}
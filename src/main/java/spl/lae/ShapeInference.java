@@ -0,0 +1,195 @@
+package spl.lae;
+
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Static shape-inference pass over a computation tree.
+ * Computes the output dimensions and FLOP estimate of every node and rejects
+ * trees with dimension mismatches before any computation is started.
+ * The inferred shapes also give the exact buffer sizes of all intermediates.
+ */
+//@INV: shapes!=null
+public class ShapeInference {
+
+    private final Map<ComputationNode, NodeShape> shapes = new IdentityHashMap<>();
+    private long totalFlops = 0;
+    private long intermediateBytes = 0;
+    private long largestBufferBytes = 0;
+
+    //@PRE: root!=null
+    //@POST: every node of the tree has an inferred shape, returns the shape of root
+    //@POST: throws IllegalArgumentException if the tree is not computable
+    public NodeShape infer(ComputationNode root) {
+        if(root==null)
+            throw new NullPointerException("root is null");
+        shapes.clear();
+        totalFlops=0;
+        intermediateBytes=0;
+        largestBufferBytes=0;
+        return inferNode(root);
+    }
+
+    //@PRE: infer was called on a tree containing node
+    public NodeShape shapeOf(ComputationNode node) {
+        NodeShape shape=shapes.get(node);
+        if(shape==null)
+            throw new IllegalStateException("No shape inferred for node");
+        return shape;
+    }
+
+    public Map<ComputationNode, NodeShape> getShapes() {
+        return shapes;
+    }
+
+    public long getTotalFlops() {
+        return totalFlops;
+    }
+
+    //@POST: returns the total size of all intermediate and final results in bytes
+    public long getIntermediateBytes() {
+        return intermediateBytes;
+    }
+
+    //@POST: returns the size of the largest single result buffer in bytes
+    public long getLargestBufferBytes() {
+        return largestBufferBytes;
+    }
+
+    private NodeShape inferNode(ComputationNode node) {
+        ComputationNodeType type=node.getNodeType();
+        if(type==null)
+            throw new IllegalStateException("Node type is null");
+        NodeShape shape;
+        if(type==ComputationNodeType.MATRIX){
+            shape=leafShape(node.getMatrix());
+        }else{
+            List<ComputationNode> children=node.getChildren();
+            if(children==null)
+                throw new IllegalStateException("Children list is null");
+            NodeShape[] operands=new NodeShape[children.size()];
+            for(int i=0; i<operands.length; i++)
+                operands[i]=inferNode(children.get(i));
+            shape=nodeShape(type, operands, node.getExponent());
+            totalFlops+=shape.getFlops();
+            intermediateBytes+=shape.getBytes();
+            largestBufferBytes=Math.max(largestBufferBytes, shape.getBytes());
+        }
+        shapes.put(node, shape);
+        return shape;
+    }
+
+    private NodeShape leafShape(double[][] matrix) {
+        if(matrix==null)
+            throw new IllegalStateException("matrix is null");
+        int rows=matrix.length;
+        int cols=rows>0 ? matrix[0].length : 0;
+        for(int i=0; i<rows; i++)
+            if(matrix[i]==null||matrix[i].length!=cols)
+                throw new IllegalArgumentException("Matrix must be rectangular");
+        return new NodeShape(ComputationNodeType.MATRIX, rows, cols, 0);
+    }
+
+    //@PRE: operands are the shapes of the operands of a type node, in order
+    //@POST: returns the shape and FLOP estimate of the node, exponent is only used by POWER
+    //@POST: throws IllegalArgumentException if the operands do not fit type
+    static NodeShape nodeShape(ComputationNodeType type, NodeShape[] operands, int exponent) {
+        return type==ComputationNodeType.POWER ? powerShape(operands, exponent) : operationShape(type, operands);
+    }
+
+    private static NodeShape operationShape(ComputationNodeType type, NodeShape[] operands) {
+        switch (type) {
+            case NEGATE: {
+                requireOperands(type, operands, 1, 1);
+                NodeShape a=operands[0];
+                return new NodeShape(type, a.getRows(), a.getCols(), (long) a.getRows()*a.getCols());
+            }
+            case TRANSPOSE: {
+                requireOperands(type, operands, 1, 1);
+                NodeShape a=operands[0];
+                return new NodeShape(type, a.getCols(), a.getRows(), 0);
+            }
+            case ADD: {
+                requireOperands(type, operands, 2, Integer.MAX_VALUE);
+                NodeShape acc=operands[0];
+                long flops=0;
+                for(int i=1; i<operands.length; i++){
+                    NodeShape next=operands[i];
+                    if(acc.getRows()!=next.getRows()||(acc.getRows()>0&&acc.getCols()!=next.getCols()))
+                        throw new IllegalArgumentException("Matrix dimension mismatch for ADD: "+acc+" and "+next);
+                    flops+=(long) acc.getRows()*acc.getCols();
+                }
+                return new NodeShape(type, acc.getRows(), acc.getCols(), flops);
+            }
+            case SOLVE: {
+                requireOperands(type, operands, 2, 2);
+                NodeShape a=requireSquare(type, operands[0]);
+                NodeShape b=operands[1];
+                if(a.getRows()!=b.getRows())
+                    throw new IllegalArgumentException("Matrix dimension mismatch for SOLVE: "+a+" and "+b);
+                return new NodeShape(type, b.getRows(), b.getCols(), luFlops(a.getRows())+2L*a.getRows()*a.getRows()*b.getCols());
+            }
+            case INVERSE: {
+                requireOperands(type, operands, 1, 1);
+                long n=requireSquare(type, operands[0]).getRows();
+                return new NodeShape(type, (int) n, (int) n, luFlops(n)+2*n*n*n);
+            }
+            case MULTIPLY: {
+                requireOperands(type, operands, 2, Integer.MAX_VALUE);
+                int rows=operands[0].getRows();
+                int inner=operands[0].getCols();
+                long flops=0;
+                for(int i=1; i<operands.length; i++){
+                    NodeShape next=operands[i];
+                    if(rows>0&&next.getRows()>0&&inner!=next.getRows())
+                        throw new IllegalArgumentException("Matrix dimension mismatch for MULTIPLY: "
+                                +rows+"x"+inner+" and "+next);
+                    flops+=2L*rows*next.getRows()*next.getCols();
+                    inner=rows>0 ? next.getCols() : 0;
+                }
+                return new NodeShape(type, rows, inner, flops);
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported node type: "+type);
+        }
+    }
+
+    // A^k by repeated squaring: one squaring per bit below the top one, one extra product per further set bit.
+    private static NodeShape powerShape(NodeShape[] operands, int exponent) {
+        requireOperands(ComputationNodeType.POWER, operands, 1, 1);
+        NodeShape a=operands[0];
+        if(a.getRows()!=a.getCols())
+            throw new IllegalArgumentException("POWER requires a square matrix: "+a);
+        long n=a.getRows();
+        return new NodeShape(ComputationNodeType.POWER, a.getRows(), a.getCols(), powerMultiplies(exponent)*2*n*n*n);
+    }
+
+    //@POST: returns the number of matrix products used to raise a matrix to exponent by repeated squaring
+    public static int powerMultiplies(int exponent) {
+        if(exponent<=1)
+            return 0;
+        return 31-Integer.numberOfLeadingZeros(exponent)+Integer.bitCount(exponent)-1;
+    }
+
+    private static NodeShape requireSquare(ComputationNodeType type, NodeShape shape) {
+        if(shape.getRows()!=shape.getCols())
+            throw new IllegalArgumentException(type+" requires a square matrix: "+shape);
+        return shape;
+    }
+
+    private static long luFlops(long n) {
+        return 2*n*n*n/3;
+    }
+
+    private static void requireOperands(ComputationNodeType type, NodeShape[] operands, int min, int max) {
+        if(operands.length<min||operands.length>max){
+            if(min==max)
+                throw new IllegalArgumentException(type+" expects exactly "+min+" operand(s)");
+            throw new IllegalArgumentException(type+" expects at least "+min+" operands");
+        }
+    }
+}
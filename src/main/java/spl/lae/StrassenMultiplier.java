@@ -0,0 +1,243 @@
+package spl.lae;
+
+import scheduling.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Strassen-Winograd multiplication for large square products: 7 half-size products
+ * and 15 additions per level instead of 8 products.
+ * Used when both operands are n x n with n >= threshold, recursing at most maxDepth
+ * levels; operands are zero-padded to a multiple of 2^depth. The 7 products of the
+ * top level run as parallel tasks on the executor, deeper levels run inside those
+ * tasks, and leaves use a cache-blocked i-k-j kernel.
+ * Each level allocates about 3.5 quadrant-sized temporaries per product, so maxDepth
+ * bounds the extra memory. Both settings may be changed while the engine runs.
+ */
+//@INV: threshold>=2 & maxDepth>=0
+public class StrassenMultiplier {
+
+    public static final int DEFAULT_THRESHOLD = 512;
+    public static final int DEFAULT_MAX_DEPTH = 2;
+    private static final int BLOCK = 64;
+
+    private final TiredExecutor executor;
+    private volatile int threshold = DEFAULT_THRESHOLD;
+    private volatile int maxDepth = DEFAULT_MAX_DEPTH;
+
+    //@PRE: executor!=null
+    public StrassenMultiplier(TiredExecutor executor) {
+        if(executor==null)
+            throw new NullPointerException("executor is null");
+        this.executor=executor;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    //@PRE: threshold>=2
+    public void setThreshold(int threshold) {
+        if(threshold<2)
+            throw new IllegalArgumentException("threshold must be at least 2");
+        this.threshold=threshold;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    //@PRE: maxDepth>=0, 0 disables Strassen
+    public void setMaxDepth(int maxDepth) {
+        if(maxDepth<0)
+            throw new IllegalArgumentException("maxDepth must be non-negative");
+        this.maxDepth=maxDepth;
+    }
+
+    //@POST: returns true if a*b would be computed by this multiplier
+    public boolean applies(double[][] a, double[][] b) {
+        int n=a.length;
+        return maxDepth>0&&n>=threshold&&a[0].length==n&&b.length==n&&b[0].length==n;
+    }
+
+    //@POST: returns the recursion depth used for an n x n product
+    public int depthFor(int n) {
+        return depthFor(n, threshold, maxDepth);
+    }
+
+    //@POST: returns the recursion depth of an n x n product under the given settings, 0 if Strassen is not used
+    public static int depthFor(int n, int threshold, int maxDepth) {
+        int depth=0;
+        for(int size=n; depth<maxDepth&&size>=threshold; size=(size+1)/2)
+            depth++;
+        return depth;
+    }
+
+    //@PRE: applies(a, b)
+    //@POST: returns a*b
+    public double[][] multiply(double[][] a, double[][] b) {
+        return multiply(a, b, UnaryOperator.identity());
+    }
+
+    //@PRE: applies(a, b) & decorate!=null
+    //@POST: returns a*b, the executor runs the tasks returned by decorate instead of the product tasks
+    public double[][] multiply(double[][] a, double[][] b, UnaryOperator<List<Runnable>> decorate) {
+        int n=a.length;
+        int depth=depthFor(n);
+        int unit=1<<depth;
+        int padded=(n+unit-1)/unit*unit;
+        double[][] pa=pad(a, padded);
+        double[][] pb=pad(b, padded);
+        double[][] c=depth==0 ? kernel(pa, pb) : topLevel(pa, pb, depth, decorate);
+        return padded==n ? c : crop(c, n);
+    }
+
+    // The 7 products of the first level run on the executor; recursion below is sequential within each task.
+    private double[][] topLevel(double[][] a, double[][] b, int depth, UnaryOperator<List<Runnable>> decorate) {
+        double[][][] products=new double[7][][];
+        List<Runnable> tasks=new ArrayList<>();
+        Operands operands=new Operands(a, b);
+        for(int p=0; p<7; p++){
+            final int index=p;
+            tasks.add(()->products[index]=recurse(operands.left(index), operands.right(index), depth-1));
+        }
+        executor.submitAll(decorate.apply(tasks));
+        return combine(products, a.length/2);
+    }
+
+    private double[][] recurse(double[][] a, double[][] b, int depth) {
+        if(depth==0)
+            return kernel(a, b);
+        Operands operands=new Operands(a, b);
+        double[][][] products=new double[7][][];
+        for(int p=0; p<7; p++)
+            products[p]=recurse(operands.left(p), operands.right(p), depth-1);
+        return combine(products, a.length/2);
+    }
+
+    // Winograd's operand sums: P1=A11*B11, P2=A12*B21, P3=S4*B22, P4=A22*T4, P5=S1*T1, P6=S2*T2, P7=S3*T3.
+    private static final class Operands {
+        final double[][] a11, a12, a21, a22, b11, b12, b21, b22;
+        final double[][] s1, s2, s3, s4, t1, t2, t3, t4;
+        Operands(double[][] a, double[][] b) {
+            int h=a.length/2;
+            a11=quadrant(a, 0, 0, h);
+            a12=quadrant(a, 0, h, h);
+            a21=quadrant(a, h, 0, h);
+            a22=quadrant(a, h, h, h);
+            b11=quadrant(b, 0, 0, h);
+            b12=quadrant(b, 0, h, h);
+            b21=quadrant(b, h, 0, h);
+            b22=quadrant(b, h, h, h);
+            s1=add(a21, a22, 1);
+            s2=add(s1, a11, -1);
+            s3=add(a11, a21, -1);
+            s4=add(a12, s2, -1);
+            t1=add(b12, b11, -1);
+            t2=add(b22, t1, -1);
+            t3=add(b22, b12, -1);
+            t4=add(t2, b21, -1);
+        }
+        double[][] left(int p) {
+            switch (p) {
+                case 0: return a11;
+                case 1: return a12;
+                case 2: return s4;
+                case 3: return a22;
+                case 4: return s1;
+                case 5: return s2;
+                default: return s3;
+            }
+        }
+        double[][] right(int p) {
+            switch (p) {
+                case 0: return b11;
+                case 1: return b21;
+                case 2: return b22;
+                case 3: return t4;
+                case 4: return t1;
+                case 5: return t2;
+                default: return t3;
+            }
+        }
+    }
+
+    // C11=P1+P2, C12=U2+P5+P3, C21=U2+P7-P4, C22=U2+P7+P5 with U2=P1+P6.
+    private static double[][] combine(double[][][] p, int h) {
+        double[][] c=new double[2*h][2*h];
+        for(int i=0; i<h; i++){
+            double[] p1=p[0][i], p2=p[1][i], p3=p[2][i], p4=p[3][i], p5=p[4][i], p6=p[5][i], p7=p[6][i];
+            double[] top=c[i], bottom=c[i+h];
+            for(int j=0; j<h; j++){
+                double u2=p1[j]+p6[j];
+                double u3=u2+p7[j];
+                top[j]=p1[j]+p2[j];
+                top[j+h]=u2+p5[j]+p3[j];
+                bottom[j]=u3-p4[j];
+                bottom[j+h]=u3+p5[j];
+            }
+        }
+        return c;
+    }
+
+    //@POST: returns a*b computed by the cache-blocked i-k-j kernel
+    static double[][] kernel(double[][] a, double[][] b) {
+        int n=a.length;
+        int inner=b.length;
+        int m=inner==0 ? 0 : b[0].length;
+        double[][] c=new double[n][m];
+        for(int k0=0; k0<inner; k0+=BLOCK){
+            int k1=Math.min(k0+BLOCK, inner);
+            for(int j0=0; j0<m; j0+=BLOCK){
+                int j1=Math.min(j0+BLOCK, m);
+                for(int i=0; i<n; i++){
+                    double[] ci=c[i];
+                    double[] ai=a[i];
+                    for(int k=k0; k<k1; k++){
+                        double aik=ai[k];
+                        double[] bk=b[k];
+                        for(int j=j0; j<j1; j++)
+                            ci[j]+=aik*bk[j];
+                    }
+                }
+            }
+        }
+        return c;
+    }
+
+    private static double[][] quadrant(double[][] m, int row, int col, int h) {
+        double[][] q=new double[h][h];
+        for(int i=0; i<h; i++)
+            System.arraycopy(m[row+i], col, q[i], 0, h);
+        return q;
+    }
+
+    private static double[][] add(double[][] x, double[][] y, double sign) {
+        int h=x.length;
+        double[][] r=new double[h][h];
+        for(int i=0; i<h; i++){
+            double[] xi=x[i], yi=y[i], ri=r[i];
+            for(int j=0; j<h; j++)
+                ri[j]=xi[j]+sign*yi[j];
+        }
+        return r;
+    }
+
+    private static double[][] pad(double[][] m, int size) {
+        if(m.length==size)
+            return m;
+        double[][] p=new double[size][size];
+        for(int i=0; i<m.length; i++)
+            System.arraycopy(m[i], 0, p[i], 0, m[i].length);
+        return p;
+    }
+
+    private static double[][] crop(double[][] m, int size) {
+        double[][] c=new double[size][size];
+        for(int i=0; i<size; i++)
+            System.arraycopy(m[i], 0, c[i], 0, size);
+        return c;
+    }
+}
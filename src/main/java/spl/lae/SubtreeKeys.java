@@ -0,0 +1,90 @@
+package spl.lae;
+
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Content-addressed keys for computation subtrees.
+ * A matrix leaf is keyed by the SHA-256 of its dimensions and values, an operator
+ * node by the SHA-256 of its type, its exponent for POWER, and the keys of its operands, in order.
+ * Two subtrees with equal keys describe the same computation on the same data.
+ */
+//@INV: keys!=null
+public class SubtreeKeys {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Map<ComputationNode, String> keys = new IdentityHashMap<>();
+
+    //@PRE: root!=null
+    //@POST: every node of the tree has a key, returns the key of root
+    public String compute(ComputationNode root) {
+        if(root==null)
+            throw new NullPointerException("root is null");
+        keys.clear();
+        return keyNode(root);
+    }
+
+    //@PRE: compute was called on a tree containing node
+    public String keyOf(ComputationNode node) {
+        String key=keys.get(node);
+        if(key==null)
+            throw new IllegalStateException("No key computed for node");
+        return key;
+    }
+
+    public Map<ComputationNode, String> getKeys() {
+        return keys;
+    }
+
+    private String keyNode(ComputationNode node) {
+        String cached=keys.get(node);
+        if(cached!=null)
+            return cached;
+        MessageDigest digest=newDigest();
+        ComputationNodeType type=node.getNodeType();
+        digest.update(type.name().getBytes(StandardCharsets.US_ASCII)); // stable when node types are added
+        if(type==ComputationNodeType.MATRIX){
+            updateMatrix(digest, node.getMatrix());
+        }else{
+            if(type==ComputationNodeType.POWER)
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(node.getExponent()).array());
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(node.getChildren().size()).array());
+            for(ComputationNode child: node.getChildren())
+                digest.update(HEX.parseHex(keyNode(child)));
+        }
+        String key=HEX.formatHex(digest.digest());
+        keys.put(node, key);
+        return key;
+    }
+
+    private static void updateMatrix(MessageDigest digest, double[][] matrix) {
+        int cols=matrix.length==0 ? 0 : matrix[0].length;
+        ByteBuffer buffer=ByteBuffer.allocate(Math.max(2*Integer.BYTES, cols*Double.BYTES));
+        buffer.putInt(matrix.length).putInt(cols).flip();
+        digest.update(buffer);
+        for(double[] row: matrix){
+            buffer.clear();
+            for(double v: row)
+                buffer.putDouble(v);
+            buffer.flip();
+            digest.update(buffer);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try{
+            return MessageDigest.getInstance("SHA-256");
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package spl.lae;
+
+import memory.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operand matrices of a single in-progress computation.
+ * Every loadAndCompute call works in its own workspace, so concurrent computations
+ * on one engine never share operands. Workspaces are pooled by the engine and reused.
+ */
+//@INV: leftMatrix!=null & rightMatrix!=null
+public class Workspace {
+
+    private final SharedMatrix leftMatrix = new SharedMatrix();
+    private final SharedMatrix rightMatrix = new SharedMatrix();
+    private NodeProfile profile; // null unless the engine is profiled
+    private LongAdder allocated; // bytes allocated by this node's tasks, null unless counted
+
+    public Workspace() {}
+
+    public SharedMatrix getLeftMatrix() {
+        return leftMatrix;
+    }
+
+    public SharedMatrix getRightMatrix() {
+        return rightMatrix;
+    }
+
+    //@POST: operands loaded from now on count their lock acquisitions in left and right, null turns counting off
+    void setLockStats(LockStats left, LockStats right) {
+        leftMatrix.setLockStats(left);
+        rightMatrix.setLockStats(right);
+    }
+
+    void setProfile(NodeProfile profile) {
+        this.profile=profile;
+    }
+
+    void setAllocationCounter(LongAdder allocated) {
+        this.allocated=allocated;
+    }
+
+    //@POST: the time since the previous mark is attributed to phase, no effect when not profiled
+    void mark(NodeProfile.Phase phase) {
+        if(profile!=null)
+            profile.mark(phase);
+    }
+
+    //@POST: returns tasks whose worker spans and allocations are recorded as enabled, tasks itself when neither is
+    List<Runnable> instrumented(List<Runnable> tasks) {
+        List<Runnable> result=profile==null ? tasks : profile.wrap(tasks);
+        LongAdder counter=allocated;
+        if(counter==null)
+            return result;
+        List<Runnable> counted=new ArrayList<>(result.size());
+        for(Runnable task: result){
+            counted.add(()->{
+                long before=AllocationStats.currentThreadAllocatedBytes();
+                try{
+                    task.run();
+                }finally{
+                    counter.add(AllocationStats.currentThreadAllocatedBytes()-before);
+                }
+            });
+        }
+        return counted;
+    }
+
+    //@POST: both matrices are empty, so a pooled workspace holds no operand data
+    void clear() {
+        leftMatrix.loadRowMajor(new double[0][0]);
+        rightMatrix.loadRowMajor(new double[0][0]);
+        profile=null;
+        allocated=null;
+    }
+}
@@ -254,4 +254,39 @@ public class SharedVectorTest {
         if (v.get(0) != 1.0 || v.get(1) != 1.0 || v.get(2) != 1.0)
             throw new RuntimeException("Concurrent access corrupted vector values");
     }
+
+    /* =========================
+       Lock instrumentation
+       ========================= */
+
+    @Test
+    void testLockStatsCountAcquisitions() {
+        LockStats stats = new LockStats();
+        SharedVector v = new SharedVector(data, VectorOrientation.ROW_MAJOR, stats);
+        v.get(0);
+        v.negate();
+        if (stats.getAcquisitions() != 2 || stats.getContendedAcquisitions() != 0 || stats.getWaitNanos() != 0)
+            throw new RuntimeException("Expected 2 uncontended acquisitions, got " + stats);
+        rowVec.get(0);
+        if (stats.getAcquisitions() != 2)
+            throw new RuntimeException("Uninstrumented vectors must not be counted");
+    }
+
+    @Test
+    void testLockStatsRecordContendedWait() throws InterruptedException {
+        LockStats stats = new LockStats();
+        SharedVector v = new SharedVector(data, VectorOrientation.ROW_MAJOR, stats);
+        v.writeLock();
+        Thread reader = new Thread(() -> v.get(0));
+        reader.start();
+        while (reader.getState() != Thread.State.WAITING)
+            Thread.onSpinWait();
+        Thread.sleep(5);
+        v.writeUnlock();
+        reader.join();
+        if (stats.getContendedAcquisitions() != 1)
+            throw new RuntimeException("Expected one contended acquisition, got " + stats);
+        if (stats.getWaitNanos() < 5_000_000)
+            throw new RuntimeException("Expected the blocked time to be counted, got " + stats);
+    }
 }
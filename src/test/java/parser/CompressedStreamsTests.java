@@ -0,0 +1,92 @@
+package parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class CompressedStreamsTests {
+
+    @TempDir
+    Path dir;
+
+    private static final String NEGATE_JSON =
+            "{\"operator\": \"-\", \"operands\": [[[1, 2], [3, 4]]]}";
+
+    @Test
+    void testParseGzipInput() throws Exception {
+        Path input = dir.resolve("in.json.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(input.toFile()))) {
+            out.write(NEGATE_JSON.getBytes(StandardCharsets.UTF_8));
+        }
+
+        ComputationNode root = new InputParser().parse(input.toString());
+
+        if (root.getNodeType() != ComputationNodeType.NEGATE)
+            throw new RuntimeException("Wrong root type parsed from gzip input");
+        double[][] operand = root.getChildren().get(0).getMatrix();
+        if (operand.length != 2 || operand[1][1] != 4.0)
+            throw new RuntimeException("Wrong operand parsed from gzip input");
+    }
+
+    @Test
+    void testWriteGzipOutput() throws IOException {
+        Path output = dir.resolve("out.json.gz");
+
+        OutputWriter.write(new double[][]{{1.5, -2.0}}, output.toString());
+
+        String json;
+        try (InputStream in = new GZIPInputStream(new FileInputStream(output.toFile()))) {
+            json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (!json.contains("result") || !json.contains("1.5") || !json.contains("-2.0"))
+            throw new RuntimeException("Gzip output has unexpected content: " + json);
+    }
+
+    @Test
+    void testPlainFilesUnchanged() throws Exception {
+        Path input = dir.resolve("in.json");
+        Files.writeString(input, NEGATE_JSON);
+
+        ComputationNode root = new InputParser().parse(input.toString());
+        if (root.getNodeType() != ComputationNodeType.NEGATE)
+            throw new RuntimeException("Plain input no longer parsed");
+
+        Path output = dir.resolve("out.json");
+        OutputWriter.write("boom", output.toString());
+        if (!Files.readString(output).contains("boom"))
+            throw new RuntimeException("Plain output no longer written");
+    }
+
+    @Test
+    void testTruncatedGzipInputFails() throws Exception {
+        Path complete = dir.resolve("complete.json.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(complete.toFile()))) {
+            out.write(NEGATE_JSON.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] full = Files.readAllBytes(complete);
+        Path truncated = dir.resolve("truncated.json.gz");
+        Files.write(truncated, Arrays.copyOf(full, full.length / 2));
+
+        boolean exceptionThrown = false;
+        try {
+            new InputParser().parse(truncated.toString());
+        } catch (ParseException e) {
+            exceptionThrown = true;
+        }
+
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected ParseException for truncated gzip input");
+    }
+}
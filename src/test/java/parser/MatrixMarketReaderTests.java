@@ -0,0 +1,127 @@
+package parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+public class MatrixMarketReaderTests {
+
+    @TempDir
+    Path dir;
+
+    private void checkMatrixEquals(double[][] actual, double[][] expected) {
+        if (actual.length != expected.length)
+            throw new RuntimeException("Row count mismatch");
+        for (int i = 0; i < actual.length; i++) {
+            if (actual[i].length != expected[i].length)
+                throw new RuntimeException("Column count mismatch at row " + i);
+            for (int j = 0; j < actual[i].length; j++) {
+                if (actual[i][j] != expected[i][j])
+                    throw new RuntimeException("Value mismatch at [" + i + "," + j + "]");
+            }
+        }
+    }
+
+    @Test
+    void testCoordinateGeneral() throws Exception {
+        Path file = dir.resolve("a.mtx");
+        Files.writeString(file,
+                "%%MatrixMarket matrix coordinate real general\n"
+                + "% comment\n"
+                + "2 3 2\n"
+                + "1 1 1.5\n"
+                + "2 3 -2\n");
+
+        double[][] expected = {{1.5, 0, 0}, {0, 0, -2}};
+        checkMatrixEquals(MatrixMarketReader.read(file.toString()), expected);
+    }
+
+    @Test
+    void testCoordinateSymmetricAndPattern() throws Exception {
+        Path symmetric = dir.resolve("s.mtx");
+        Files.writeString(symmetric,
+                "%%MatrixMarket matrix coordinate integer symmetric\n"
+                + "2 2 2\n"
+                + "1 1 4\n"
+                + "2 1 7\n");
+        checkMatrixEquals(MatrixMarketReader.read(symmetric.toString()), new double[][]{{4, 7}, {7, 0}});
+
+        Path pattern = dir.resolve("p.mtx");
+        Files.writeString(pattern,
+                "%%MatrixMarket matrix coordinate pattern general\n"
+                + "2 2 1\n"
+                + "1 2\n");
+        checkMatrixEquals(MatrixMarketReader.read(pattern.toString()), new double[][]{{0, 1}, {0, 0}});
+    }
+
+    @Test
+    void testArrayFormatIsColumnMajor() throws Exception {
+        Path file = dir.resolve("d.mtx");
+        Files.writeString(file,
+                "%%MatrixMarket matrix array real general\n"
+                + "2 2\n"
+                + "1\n3\n2\n4\n");
+
+        checkMatrixEquals(MatrixMarketReader.read(file.toString()), new double[][]{{1, 2}, {3, 4}});
+    }
+
+    @Test
+    void testEntryCountMismatchRejected() throws Exception {
+        Path file = dir.resolve("bad.mtx");
+        Files.writeString(file,
+                "%%MatrixMarket matrix coordinate real general\n"
+                + "2 2 3\n"
+                + "1 1 1\n");
+
+        boolean exceptionThrown = false;
+        try {
+            MatrixMarketReader.read(file.toString());
+        } catch (ParseException e) {
+            exceptionThrown = true;
+        }
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected ParseException for missing entries");
+    }
+
+    @Test
+    void testOversizedHeaderRejectedBeforeAllocation() throws Exception {
+        Path huge = dir.resolve("huge.mtx");
+        Files.writeString(huge,
+                "%%MatrixMarket matrix coordinate real general\n"
+                + "200000 200000 1\n"
+                + "1 1 1\n");
+        Path crowded = dir.resolve("crowded.mtx");
+        Files.writeString(crowded,
+                "%%MatrixMarket matrix coordinate real general\n"
+                + "2 2 5\n"
+                + "1 1 1\n");
+
+        for (Path file : new Path[]{huge, crowded}) {
+            boolean exceptionThrown = false;
+            try {
+                MatrixMarketReader.read(file.toString());
+            } catch (ParseException e) {
+                exceptionThrown = e.getErrorOffset() == 2;
+            }
+            if (!exceptionThrown)
+                throw new RuntimeException("Expected ParseException on the size line of " + file.getFileName());
+        }
+    }
+
+    @Test
+    void testInputParserResolvesMtxOperands() throws Exception {
+        Files.writeString(dir.resolve("a.mtx"),
+                "%%MatrixMarket matrix coordinate real general\n"
+                + "1 2 1\n"
+                + "1 2 5\n");
+        Path input = dir.resolve("in.json");
+        Files.writeString(input, "{\"operator\": \"-\", \"operands\": [\"a.mtx\"]}");
+
+        ComputationNode root = new InputParser().parse(input.toString());
+
+        checkMatrixEquals(root.getChildren().get(0).getMatrix(), new double[][]{{0, 5}});
+    }
+}
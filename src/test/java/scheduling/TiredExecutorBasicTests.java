@@ -1,13 +1,29 @@
 package scheduling;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class TiredExecutorBasicTests {
 
+    @TempDir
+    Path dir;
+
     @Test
     void testSingleTaskExecution() throws InterruptedException {
         TiredExecutor executor = new TiredExecutor(2);
@@ -229,4 +245,355 @@ public class TiredExecutorBasicTests {
             throw new RuntimeException("Worker report does not include fatigue data");
         }
     }
+
+    /* =========================
+       Batches
+       ========================= */
+
+    @Test
+    void testBatchesAreAwaitedSeparately() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TaskBatch slow = executor.submitBatch(List.of(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        }));
+        AtomicInteger counter = new AtomicInteger(0);
+        TaskBatch fast = executor.submitBatch(List.of(counter::incrementAndGet));
+
+        fast.await();
+        if (counter.get() != 1 || !fast.isDone()) {
+            throw new RuntimeException("Fast batch did not complete independently");
+        }
+        if (slow.isDone()) {
+            throw new RuntimeException("Slow batch completed before its task finished");
+        }
+
+        release.countDown();
+        slow.await();
+        executor.shutdown();
+    }
+
+    @Test
+    void testBatchCompletionComposes() throws Exception {
+        TiredExecutor executor = new TiredExecutor(2);
+        AtomicInteger counter = new AtomicInteger(0);
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tasks.add(counter::incrementAndGet);
+        }
+        TaskBatch batch = executor.submitBatchAsync(tasks);
+        int seen = batch.completion().thenApply(ignored -> counter.get()).get(5, TimeUnit.SECONDS);
+
+        if (seen != 10 || batch.getTaskCount() != 10) {
+            throw new RuntimeException("Batch completed before all tasks ran: " + seen);
+        }
+
+        executor.shutdown();
+    }
+
+    @Test
+    void testFailedTaskCompletesBatchExceptionally() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+
+        TaskBatch batch = executor.submitBatch(List.of(() -> {
+            throw new IllegalStateException("boom");
+        }, () -> {}));
+        batch.await();
+
+        if (batch.getFailedCount() != 1 || !batch.completion().isCompletedExceptionally()) {
+            throw new RuntimeException("Task failure was not reported by the batch");
+        }
+
+        executor.shutdown();
+    }
+
+    /* =========================
+       Virtual I/O mode
+       ========================= */
+
+    @Test
+    void testVirtualIoTasksDoNotOccupyWorkers() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1, ExecutionMode.VIRTUAL);
+        AtomicInteger counter = new AtomicInteger(0);
+
+        List<Runnable> ioTasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ioTasks.add(() -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {
+                }
+                counter.incrementAndGet();
+            });
+        }
+
+        long start = System.nanoTime();
+        executor.submitAllIo(ioTasks);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        if (counter.get() != 20) {
+            throw new RuntimeException("Not all I/O tasks were executed");
+        }
+        if (elapsedMs >= 1000) {
+            throw new RuntimeException("I/O tasks were serialized on the worker pool: " + elapsedMs + "ms");
+        }
+        if (!executor.getWorkerReport().contains("Virtual I/O tasks: 20")) {
+            throw new RuntimeException("Worker report does not include I/O tasks");
+        }
+
+        executor.shutdown();
+    }
+
+    @Test
+    void testPlatformModeRunsIoTasksOnWorkers() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+        AtomicInteger counter = new AtomicInteger(0);
+
+        executor.submitAllIo(List.of(counter::incrementAndGet, counter::incrementAndGet));
+
+        if (counter.get() != 2) {
+            throw new RuntimeException("I/O tasks were not executed in PLATFORM mode");
+        }
+
+        executor.shutdown();
+    }
+
+    @Test
+    void testSubmitIoAfterShutdownFails() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1, ExecutionMode.VIRTUAL);
+        executor.shutdown();
+
+        boolean exceptionThrown = false;
+        try {
+            executor.submitIo(() -> {});
+        } catch (IllegalStateException e) {
+            exceptionThrown = true;
+        }
+
+        if (!exceptionThrown) {
+            throw new RuntimeException("Expected failure when submitting I/O after shutdown");
+        }
+    }
+
+    @Test
+    void testIoFailuresReachTheCaller() throws Exception {
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            TiredExecutor executor = new TiredExecutor(1, mode);
+
+            boolean exceptionThrown = false;
+            try {
+                executor.submitAllIo(List.of(() -> {}, () -> {
+                    throw new IllegalStateException("disk full");
+                }));
+            } catch (IllegalStateException e) {
+                exceptionThrown = "disk full".equals(e.getMessage());
+            }
+            if (!exceptionThrown) {
+                throw new RuntimeException("submitAllIo did not rethrow the task failure in " + mode + " mode");
+            }
+
+            exceptionThrown = false;
+            try {
+                executor.callIo(() -> {
+                    throw new IOException("unreadable");
+                });
+            } catch (IOException e) {
+                exceptionThrown = true;
+            }
+            if (!exceptionThrown) {
+                throw new RuntimeException("callIo did not rethrow the checked exception in " + mode + " mode");
+            }
+            if (executor.callIo(() -> 42) != 42) {
+                throw new RuntimeException("callIo did not return the task result in " + mode + " mode");
+            }
+
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testPlatformCallIoRunsOnCaller() throws Exception {
+        TiredExecutor executor = new TiredExecutor(1);
+
+        Thread caller = Thread.currentThread();
+        if (executor.callIo(Thread::currentThread) != caller) {
+            throw new RuntimeException("callIo should run on the caller in PLATFORM mode");
+        }
+        if (executor.getMetrics().tasksCompleted() != 0) {
+            throw new RuntimeException("callIo should not occupy a worker in PLATFORM mode");
+        }
+
+        executor.shutdown();
+    }
+
+    @Test
+    void testIoBatchesAreAwaitedSeparately() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1, ExecutionMode.VIRTUAL);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TaskBatch slow = executor.submitIo(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        AtomicInteger counter = new AtomicInteger(0);
+        executor.submitAllIo(List.of(counter::incrementAndGet));
+
+        if (counter.get() != 1 || slow.isDone()) {
+            throw new RuntimeException("submitAllIo should wait for its own tasks only");
+        }
+
+        release.countDown();
+        slow.join();
+        executor.shutdown();
+    }
+
+    @Test
+    void testWorkerFatiguesGrowWithWork() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(() -> {
+                long end = System.nanoTime() + 1_000_000;
+                while (System.nanoTime() < end) {
+                }
+            });
+        }
+        executor.submitAll(tasks);
+
+        double[] fatigues = executor.getWorkerFatigues();
+        executor.shutdown();
+
+        if (fatigues.length != executor.getWorkerCount()) {
+            throw new RuntimeException("Expected one fatigue value per worker");
+        }
+        for (double fatigue : fatigues) {
+            if (fatigue <= 0) {
+                throw new RuntimeException("Every worker should have accumulated fatigue");
+            }
+        }
+    }
+
+    @Test
+    void testMetricsSnapshot() throws Exception {
+        TiredExecutor executor = new TiredExecutor(3);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            tasks.add(() -> {
+                long end = System.nanoTime() + 200_000;
+                while (System.nanoTime() < end) {
+                }
+            });
+        }
+        executor.submitAll(tasks);
+        ExecutorMetrics metrics = executor.getMetrics();
+        executor.shutdown();
+
+        if (metrics.tasksCompleted() != 30 || metrics.execution().count() != 30 || metrics.queueWait().count() != 30) {
+            throw new RuntimeException("Expected 30 recorded tasks, got " + metrics.tasksCompleted());
+        }
+        if (metrics.workers().size() != 3 || metrics.idleWorkers() != 3 || metrics.inFlight() != 0) {
+            throw new RuntimeException("Unexpected worker state in metrics");
+        }
+        LatencySnapshot execution = metrics.execution();
+        if (execution.p50Nanos() < 100_000 || execution.p50Nanos() > execution.p99Nanos()
+                || execution.p99Nanos() > execution.maxNanos()) {
+            throw new RuntimeException("Inconsistent percentiles: " + execution);
+        }
+        if (metrics.utilization() <= 0 || metrics.utilization() > 1) {
+            throw new RuntimeException("Utilization out of range: " + metrics.utilization());
+        }
+
+        JsonNode json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(metrics));
+        if (json.get("workers").size() != 3 || json.get("execution").get("p99Nanos").asLong() != execution.p99Nanos()) {
+            throw new RuntimeException("Metrics did not serialize to JSON: " + json);
+        }
+    }
+
+    @Test
+    void testExecutorMBean() throws Exception {
+        TiredExecutor executor = new TiredExecutor(2);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = TiredExecutorMonitor.register(executor, "executor-test");
+        try {
+            executor.submitAll(List.of(() -> {}, () -> {}, () -> {}));
+            if ((Long) server.getAttribute(name, "TasksCompleted") != 3) {
+                throw new RuntimeException("Expected 3 completed tasks over JMX");
+            }
+            if ((Integer) server.getAttribute(name, "IdleWorkers") != 2 || (Integer) server.getAttribute(name, "InFlight") != 0) {
+                throw new RuntimeException("Expected an idle executor over JMX");
+            }
+            if (((boolean[]) server.getAttribute(name, "WorkerBusy")).length != 2) {
+                throw new RuntimeException("Expected one busy flag per worker");
+            }
+        } finally {
+            server.unregisterMBean(name);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testLatencyHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencySnapshot snapshot = histogram.snapshot();
+        if (snapshot.count() != 1000 || snapshot.maxNanos() != 1_000_000) {
+            throw new RuntimeException("Wrong count or max: " + snapshot);
+        }
+        if (Math.abs(snapshot.p50Nanos() - 500_000) > 500_000 / 8 || Math.abs(snapshot.p99Nanos() - 990_000) > 990_000 / 8) {
+            throw new RuntimeException("Percentiles outside the bucket error: " + snapshot);
+        }
+        if (new LatencyHistogram().snapshot().p99Nanos() != 0) {
+            throw new RuntimeException("Empty histogram must report 0");
+        }
+    }
+
+    @Test
+    void testFlightRecorderEvents() throws Exception {
+        TiredExecutor executor = new TiredExecutor(2);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(() -> {
+            });
+        }
+        Path file = dir.resolve("tasks.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("spl.TaskSubmit").withoutThreshold();
+            recording.enable("spl.TaskExecution").withoutThreshold();
+            recording.start();
+            try {
+                executor.submitAll(tasks);
+            } finally {
+                // shutdown joins the workers, so every event is committed before the recording stops
+                executor.shutdown();
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        int submits = 0;
+        int executions = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            String name = event.getEventType().getName();
+            if (name.equals("spl.TaskSubmit")) {
+                submits++;
+            } else if (name.equals("spl.TaskExecution")) {
+                executions++;
+                if (event.getLong("queueWait") < 0) {
+                    throw new RuntimeException("Queue wait must not be negative");
+                }
+            }
+        }
+        if (submits != 5 || executions != 5) {
+            throw new RuntimeException("Expected 5 submit and 5 execution events, got " + submits + " and " + executions);
+        }
+    }
 }
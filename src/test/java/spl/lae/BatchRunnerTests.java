@@ -0,0 +1,117 @@
+package spl.lae;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.ComputationNodeType;
+import scheduling.TiredExecutor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class BatchRunnerTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testManifestJobsShareOneExecutor() throws Exception {
+        Files.writeString(dir.resolve("neg.json"), "{\"operator\": \"-\", \"operands\": [[[1, 2]]]}");
+        Files.writeString(dir.resolve("add.json"), "{\"operator\": \"+\", \"operands\": [[[1]], [[2]]]}");
+        Files.writeString(dir.resolve("bad.json"), "{\"operator\": \"+\", \"operands\": [[[1]], [[1, 2]]]}");
+        Path manifest = dir.resolve("jobs.txt");
+        Files.writeString(manifest,
+                "# input output\n"
+                + "neg.json neg.out.json\n"
+                + "add.json add.out.json\n"
+                + "\n"
+                + "bad.json bad.out.json\n");
+
+        TiredExecutor executor = new TiredExecutor(2);
+        List<BatchRunner.JobResult> results =
+                new BatchRunner(executor, 2).run(BatchRunner.fromManifest(manifest));
+
+        if (results.size() != 3)
+            throw new RuntimeException("Expected one result per manifest line");
+        if (!results.get(0).succeeded() || !results.get(1).succeeded())
+            throw new RuntimeException("Valid jobs failed");
+        if (results.get(2).succeeded())
+            throw new RuntimeException("Invalid job reported success");
+        if (!Files.readString(dir.resolve("add.out.json")).contains("3.0"))
+            throw new RuntimeException("Wrong result written for add.json");
+        if (!Files.readString(dir.resolve("bad.out.json")).contains("error"))
+            throw new RuntimeException("Error not written for bad.json");
+        if (!BatchRunner.summary(results, 0).contains("Total: 3 files, 1 failed"))
+            throw new RuntimeException("Summary does not count failures");
+
+        // closing the shared engine leaves the caller's executor running
+        executor.submitAll(List.of(() -> {}));
+        executor.shutdown();
+    }
+
+    @Test
+    void testBatchAllocationsIncludeTheCallingThread() throws Exception {
+        int n = 300;
+        StringBuilder matrix = new StringBuilder("[");
+        for (int i = 0; i < n; i++) {
+            matrix.append(i == 0 ? "[" : ", [");
+            for (int j = 0; j < n; j++)
+                matrix.append(j == 0 ? "" : ", ").append(i + j);
+            matrix.append("]");
+        }
+        Files.writeString(dir.resolve("neg.json"), "{\"operator\": \"-\", \"operands\": [" + matrix + "]]}");
+
+        TiredExecutor executor = new TiredExecutor(2);
+        AllocationStats allocations = new AllocationStats();
+        BatchRunner runner = new BatchRunner(executor, 2);
+        runner.setAllocationStats(allocations);
+        List<BatchRunner.JobResult> results =
+                runner.run(List.of(new BatchRunner.Job(dir.resolve("neg.json").toString(), dir.resolve("neg.out.json").toString())));
+        executor.shutdown();
+
+        if (!results.get(0).succeeded())
+            throw new RuntimeException("NEGATE job failed: " + results.get(0).error);
+        // loading and reading back the operand copy it at least once on the calling thread
+        long matrixBytes = (long) n * n * Double.BYTES;
+        if (allocations.getBytes(ComputationNodeType.NEGATE) < matrixBytes)
+            throw new RuntimeException("NEGATE allocations too low: " + allocations.getBytes(ComputationNodeType.NEGATE));
+        if (allocations.getPartialNodes(ComputationNodeType.NEGATE) != 0 || allocations.getReport().contains("Incomplete"))
+            throw new RuntimeException("Batch lanes must be measurable: " + allocations.getReport());
+    }
+
+    @Test
+    void testDirectoryJobsWriteToOutputDir() throws Exception {
+        Path in = Files.createDirectory(dir.resolve("in"));
+        Files.writeString(in.resolve("a.json"), "{\"operator\": \"T\", \"operands\": [[[1, 2]]]}");
+        Files.writeString(in.resolve("notes.txt"), "ignored");
+
+        List<BatchRunner.Job> jobs = BatchRunner.fromDirectory(in, dir.resolve("out"));
+
+        if (jobs.size() != 1)
+            throw new RuntimeException("Only .json files should become jobs");
+        TiredExecutor executor = new TiredExecutor(1);
+        new BatchRunner(executor, 1).run(jobs);
+        executor.shutdown();
+        if (!Files.exists(dir.resolve("out").resolve("a.json")))
+            throw new RuntimeException("Output not written to output directory");
+    }
+
+    @Test
+    void testDirectoryJobsRejectOverlappingDirectories() throws Exception {
+        Path in = Files.createDirectory(dir.resolve("in"));
+        Files.writeString(in.resolve("a.json"), "{\"operator\": \"T\", \"operands\": [[[1, 2]]]}");
+
+        for (Path out : List.of(in, in.resolve("."), in.resolve("out"), dir)) {
+            boolean exceptionThrown = false;
+            try {
+                BatchRunner.fromDirectory(in, out);
+            } catch (IllegalArgumentException e) {
+                exceptionThrown = true;
+            }
+            if (!exceptionThrown)
+                throw new RuntimeException("Expected IllegalArgumentException for output directory " + out);
+        }
+        if (Files.exists(in.resolve("out")))
+            throw new RuntimeException("Rejected output directory should not be created");
+    }
+}
@@ -0,0 +1,78 @@
+package spl.lae;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+public class DiskResultStoreTests {
+
+    @TempDir
+    Path dir;
+
+    private static final String KEY_A = "aa01";
+    private static final String KEY_B = "bb02";
+    private static final String KEY_C = "cc03";
+
+    @Test
+    void testResultSurvivesNewStoreInstance() throws Exception {
+        double[][] matrix = {{1.5, -2}, {0, 1e300}, {Double.NaN, 7}};
+        new DiskResultStore(dir, 1 << 20).put(KEY_A, matrix);
+
+        DiskResultStore reopened = new DiskResultStore(dir, 1 << 20);
+        double[][] read = reopened.get(KEY_A);
+
+        if (read == null || read.length != 3 || read[0].length != 2)
+            throw new RuntimeException("Stored matrix not found or wrong shape");
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 2; j++)
+                if (Double.compare(read[i][j], matrix[i][j]) != 0)
+                    throw new RuntimeException("Value mismatch at [" + i + "," + j + "]");
+        if (reopened.get(KEY_B) != null || reopened.getMisses() != 1)
+            throw new RuntimeException("Expected a miss for an absent key");
+    }
+
+    @Test
+    void testCorruptFileIsDeleted() throws Exception {
+        DiskResultStore store = new DiskResultStore(dir, 1 << 20);
+        store.put(KEY_A, new double[][]{{1, 2}, {3, 4}});
+        Path file = dir.resolve(KEY_A + DiskResultStore.EXTENSION);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[20] ^= 1;
+        Files.write(file, bytes);
+
+        if (store.get(KEY_A) != null)
+            throw new RuntimeException("Corrupt result was returned");
+        if (store.getCorrupted() != 1 || Files.exists(file))
+            throw new RuntimeException("Corrupt file was not detected and deleted");
+    }
+
+    @Test
+    void testOldestResultEvictedAboveCap() throws Exception {
+        double[][] matrix = new double[8][8];
+        DiskResultStore store = new DiskResultStore(dir, 1200);
+        store.put(KEY_A, matrix);
+        Files.setLastModifiedTime(dir.resolve(KEY_A + DiskResultStore.EXTENSION), FileTime.fromMillis(1000));
+        store.put(KEY_B, matrix);
+        store.put(KEY_C, matrix);
+
+        if (store.contains(KEY_A) || !store.contains(KEY_B) || !store.contains(KEY_C))
+            throw new RuntimeException("Expected the oldest result to be evicted");
+        if (store.getEvictions() != 1 || store.getBytes() > 1200)
+            throw new RuntimeException("Wrong eviction accounting");
+    }
+
+    @Test
+    void testCacheFallsBackToStore() throws Exception {
+        new ResultCache(1 << 20, new DiskResultStore(dir, 1 << 20)).put(KEY_A, new double[][]{{4}});
+
+        ResultCache fresh = new ResultCache(1 << 20, new DiskResultStore(dir, 1 << 20));
+        double[][] read = fresh.get(KEY_A);
+        if (read == null || read[0][0] != 4)
+            throw new RuntimeException("Expected the result from the disk tier");
+        if (!fresh.contains(KEY_A))
+            throw new RuntimeException("Disk hit was not promoted into memory");
+    }
+}
@@ -0,0 +1,125 @@
+package spl.lae;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import scheduling.TiredExecutor;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+public class EngineServerTests {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] json(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] b) {
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testPipelinedRequestsAnsweredInOrderOverTcp() throws Exception {
+        TiredExecutor executor = new TiredExecutor(2);
+        try (EngineServer server = new EngineServer(executor,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2)) {
+            server.start();
+
+            try (SocketChannel client = SocketChannel.open(server.getLocalAddress())) {
+                for (int i = 1; i <= 5; i++) {
+                    EngineServer.writeFrame(client,
+                            json("{\"operator\": \"-\", \"operands\": [[[" + i + "]]]}"));
+                }
+                EngineServer.writeFrame(client, json("{\"operator\": \"?\", \"operands\": [[[1]]]}"));
+                client.shutdownOutput();
+
+                for (int i = 1; i <= 5; i++) {
+                    String response = text(EngineServer.readFrame(client));
+                    if (!response.contains("-" + i + ".0"))
+                        throw new RuntimeException("Response " + i + " out of order: " + response);
+                }
+                String error = text(EngineServer.readFrame(client));
+                if (!error.contains("error"))
+                    throw new RuntimeException("Expected error response, got: " + error);
+                if (EngineServer.readFrame(client) != null)
+                    throw new RuntimeException("Expected end of stream after last response");
+            }
+        }
+        executor.shutdown();
+    }
+
+    // a column times a row: a tiny request whose response is far larger than the socket buffers
+    private static byte[] outerProduct(int n) {
+        StringBuilder column = new StringBuilder("[");
+        StringBuilder row = new StringBuilder("[[");
+        for (int i = 0; i < n; i++) {
+            column.append(i == 0 ? "" : ", ").append("[1]");
+            row.append(i == 0 ? "" : ", ").append(i);
+        }
+        return json("{\"operator\": \"*\", \"operands\": [" + column + "], " + row + "]]]}");
+    }
+
+    @Test
+    void testUnreadResponsesHoldInFlightPermits() throws Exception {
+        TiredExecutor executor = new TiredExecutor(2);
+        SocketAddress address = UnixDomainSocketAddress.of(dir.resolve("engine.sock"));
+        try (EngineServer server = new EngineServer(executor, address, 1)) {
+            server.start();
+
+            try (SocketChannel client = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+                client.connect(address);
+                for (int i = 0; i < 3; i++)
+                    EngineServer.writeFrame(client, outerProduct(600));
+                while (server.getEngine().getNodesResolved() == 0)
+                    Thread.sleep(10);
+                Thread.sleep(2000);
+                long resolved = server.getEngine().getNodesResolved();
+                if (resolved != 1)
+                    throw new RuntimeException("Expected only the first request evaluated while its response is unread, got " + resolved);
+
+                for (int i = 0; i < 3; i++) {
+                    if (EngineServer.readFrame(client) == null)
+                        throw new RuntimeException("Missing response " + i);
+                }
+                if (server.getEngine().getNodesResolved() != 3)
+                    throw new RuntimeException("Expected all three requests evaluated once read");
+            }
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void testUnixDomainSocket() throws Exception {
+        TiredExecutor executor = new TiredExecutor(1);
+        SocketAddress address = UnixDomainSocketAddress.of(dir.resolve("engine.sock"));
+        try (EngineServer server = new EngineServer(executor, address, 1)) {
+            server.start();
+
+            try (SocketChannel client = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+                client.connect(address);
+                EngineServer.writeFrame(client, json("{\"operator\": \"+\", \"operands\": [[[1, 2]], [[3, 4]]]}"));
+                String response = text(EngineServer.readFrame(client));
+                if (!response.contains("4.0") || !response.contains("6.0"))
+                    throw new RuntimeException("Wrong result over unix socket: " + response);
+            }
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void testParseAddress() {
+        if (!(EngineServer.parseAddress("unix:/tmp/x.sock") instanceof UnixDomainSocketAddress))
+            throw new RuntimeException("unix: prefix not parsed as Unix-domain address");
+        InetSocketAddress tcp = (InetSocketAddress) EngineServer.parseAddress("7070");
+        if (tcp.getPort() != 7070 || !tcp.getAddress().isLoopbackAddress())
+            throw new RuntimeException("Bare port should bind to loopback");
+    }
+}
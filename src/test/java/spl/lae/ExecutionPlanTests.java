@@ -0,0 +1,60 @@
+package spl.lae;
+
+import org.junit.jupiter.api.Test;
+import parser.*;
+
+import java.util.List;
+
+public class ExecutionPlanTests {
+
+    private ComputationNode matrix(int rows, int cols) {
+        return new ComputationNode(new double[rows][cols]);
+    }
+
+    @Test
+    void testStepsFollowEvaluationOrder() {
+        ComputationNode product = new ComputationNode(ComputationNodeType.MULTIPLY, List.of(matrix(6, 4), matrix(4, 3)));
+        ComputationNode root = new ComputationNode(ComputationNodeType.NEGATE, List.of(product));
+
+        ExecutionPlan plan = ExecutionPlan.of(root, 4, 2, 512, 2);
+
+        List<ExecutionPlan.Step> steps = plan.getSteps();
+        if (steps.size() != 2 || steps.get(0).type != ComputationNodeType.MULTIPLY || steps.get(1).type != ComputationNodeType.NEGATE)
+            throw new RuntimeException("Expected MULTIPLY then NEGATE");
+        if (steps.get(0).tasks != 3 || steps.get(1).tasks != 3)
+            throw new RuntimeException("Expected 6 rows in tasks of 2 rows");
+        if (plan.getTotalFlops() != 2L * 6 * 4 * 3 + 6 * 3)
+            throw new RuntimeException("Wrong total flops: " + plan.getTotalFlops());
+        if (root.getNodeType() != ComputationNodeType.NEGATE)
+            throw new RuntimeException("Planning must not compute the tree");
+    }
+
+    @Test
+    void testLargeSquareProductPlansStrassen() {
+        ComputationNode root = new ComputationNode(ComputationNodeType.MULTIPLY, List.of(matrix(1024, 1024), matrix(1024, 1024)));
+
+        ExecutionPlan plan = ExecutionPlan.of(root, 8);
+
+        ExecutionPlan.Step step = plan.getSteps().get(0);
+        if (!step.kernel.equals("strassen-winograd (depth 2)") || step.tasks != 7)
+            throw new RuntimeException("Unexpected kernel: " + step.kernel + ", tasks " + step.tasks);
+        long matrixBytes = 1024L * 1024 * Double.BYTES;
+        if (plan.getPeakLiveBytes() != 3 * matrixBytes)
+            throw new RuntimeException("Expected two operands and the result live, got " + plan.getPeakLiveBytes());
+        if (!plan.format().contains("#1 MULTIPLY 1024x1024, 1024x1024 -> 1024x1024"))
+            throw new RuntimeException("Unexpected plan text:\n" + plan.format());
+    }
+
+    @Test
+    void testMismatchRejectedBeforePlanning() {
+        ComputationNode root = new ComputationNode(ComputationNodeType.ADD, List.of(matrix(2, 2), matrix(3, 3)));
+        boolean exceptionThrown = false;
+        try {
+            ExecutionPlan.of(root, 2);
+        } catch (IllegalArgumentException e) {
+            exceptionThrown = true;
+        }
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected IllegalArgumentException for mismatched operands");
+    }
+}
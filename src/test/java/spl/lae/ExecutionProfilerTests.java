@@ -0,0 +1,92 @@
+package spl.lae;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.*;
+import scheduling.TiredExecutor;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public class ExecutionProfilerTests {
+
+    @TempDir
+    Path dir;
+
+    private ComputationNode expression() {
+        double[][] a = {{1, 2}, {3, 4}, {5, 6}};
+        double[][] b = {{1, 0}, {0, 1}};
+        return new ComputationNode(ComputationNodeType.NEGATE, List.of(
+                new ComputationNode(ComputationNodeType.MULTIPLY, List.of(new ComputationNode(a), new ComputationNode(b)))));
+    }
+
+    @Test
+    void testNodeProfilesRecordShapesAndTasks() throws Exception {
+        TiredExecutor executor = new TiredExecutor(2);
+        ExecutionProfiler profiler = new ExecutionProfiler();
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(executor)) {
+            engine.setProfiler(profiler);
+            engine.run(expression());
+        } finally {
+            executor.shutdown();
+        }
+
+        List<NodeProfile> profiles = profiler.getNodeProfiles();
+        if (profiles.size() != 2)
+            throw new RuntimeException("Expected one profile per resolved node, got " + profiles.size());
+        NodeProfile multiply = profiles.get(0);
+        if (multiply.getNodeType() != ComputationNodeType.MULTIPLY || !multiply.getResultShape().equals("3x2"))
+            throw new RuntimeException("Unexpected first profile: " + multiply.getNodeType() + " " + multiply.getResultShape());
+        if (!multiply.getOperandShapes().equals(List.of("3x2", "2x2")))
+            throw new RuntimeException("Unexpected operand shapes: " + multiply.getOperandShapes());
+        if (multiply.getTaskCount() != 3 || profiles.get(1).getTaskCount() != 3)
+            throw new RuntimeException("Expected one task per row");
+        if (profiler.getTaskSpanCount() != 6)
+            throw new RuntimeException("Expected 6 task spans, got " + profiler.getTaskSpanCount());
+        long phases = 0;
+        for (NodeProfile.Phase phase : NodeProfile.Phase.values())
+            phases += multiply.getTime(phase);
+        if (phases != multiply.getTotalTime())
+            throw new RuntimeException("Phase times must add up to the node time");
+    }
+
+    @Test
+    void testChromeTraceContainsNodesTasksAndThreads() throws Exception {
+        ExecutionProfiler profiler = new ExecutionProfiler();
+        LinearAlgebraEngine engine = new LinearAlgebraEngine(2);
+        engine.setProfiler(profiler);
+        engine.run(expression());
+
+        Path file = dir.resolve("out.json.trace.json");
+        profiler.writeChromeTrace(file.toString());
+
+        JsonNode events = new ObjectMapper().readTree(file.toFile()).get("traceEvents");
+        int nodes = 0, tasks = 0, threadNames = 0;
+        for (JsonNode event : events) {
+            String category = event.path("cat").asText();
+            if (category.equals("node"))
+                nodes++;
+            else if (category.equals("task"))
+                tasks++;
+            else if (event.get("ph").asText().equals("M"))
+                threadNames++;
+        }
+        if (nodes != 2 || tasks != 6)
+            throw new RuntimeException("Expected 2 node and 6 task events, got " + nodes + " and " + tasks);
+        if (threadNames < 2)
+            throw new RuntimeException("Expected thread name metadata for the caller and the workers");
+    }
+
+    @Test
+    void testUnprofiledEngineRecordsNothing() {
+        ExecutionProfiler profiler = new ExecutionProfiler();
+        LinearAlgebraEngine engine = new LinearAlgebraEngine(1);
+        engine.setProfiler(profiler);
+        engine.setProfiler(null);
+        engine.run(expression());
+        if (!profiler.getNodeProfiles().isEmpty())
+            throw new RuntimeException("Profiling was turned off");
+    }
+}
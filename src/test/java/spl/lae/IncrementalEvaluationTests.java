@@ -0,0 +1,98 @@
+package spl.lae;
+
+import org.junit.jupiter.api.Test;
+import parser.*;
+
+import java.util.List;
+
+public class IncrementalEvaluationTests {
+
+    private void checkMatrixEquals(double[][] actual, double[][] expected) {
+        if (actual.length != expected.length)
+            throw new RuntimeException("Row count mismatch");
+        for (int i = 0; i < actual.length; i++) {
+            if (actual[i].length != expected[i].length)
+                throw new RuntimeException("Column count mismatch at row " + i);
+            for (int j = 0; j < actual[i].length; j++) {
+                if (actual[i][j] != expected[i][j])
+                    throw new RuntimeException("Value mismatch at [" + i + "," + j + "]");
+            }
+        }
+    }
+
+    private double[][] fresh(ComputationNode root) {
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            return engine.run(root).getMatrix();
+        }
+    }
+
+    private ComputationNode expression(ComputationNode a, ComputationNode b, ComputationNode c) {
+        // (A * B) + C
+        return new ComputationNode(ComputationNodeType.ADD, List.of(
+                new ComputationNode(ComputationNodeType.MULTIPLY, List.of(a, b)), c));
+    }
+
+    @Test
+    void testRowUpdateRecomputesOnlyThatRow() {
+        double[][] a = {{1, 2}, {3, 4}, {5, 6}, {7, 8}};
+        double[][] b = {{1, 0, 2}, {0, 1, 3}};
+        double[][] c = {{1, 1, 1}, {1, 1, 1}, {1, 1, 1}, {1, 1, 1}};
+        ComputationNode leafA = new ComputationNode(a);
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            IncrementalEvaluation evaluation = engine.incremental(
+                    expression(leafA, new ComputationNode(b), new ComputationNode(c)));
+            evaluation.evaluate();
+            long rowsBefore = evaluation.getRecomputedRows();
+
+            double[][] updated = {{1, 2}, {3, 4}, {-5, 9}, {7, 8}};
+            evaluation.updateLeaf(leafA, updated);
+            double[][] result = evaluation.evaluate();
+
+            checkMatrixEquals(result, fresh(expression(
+                    new ComputationNode(updated), new ComputationNode(b), new ComputationNode(c))));
+            if (evaluation.getRecomputedRows() - rowsBefore != 2)
+                throw new RuntimeException("Expected one row recomputed in each of two nodes, got "
+                        + (evaluation.getRecomputedRows() - rowsBefore));
+        }
+    }
+
+    @Test
+    void testRightOperandChangeRecomputesProductAndUnchangedLeavesNothing() {
+        double[][] a = {{1, 2}, {3, 4}};
+        double[][] b = {{5, 6}, {7, 8}};
+        ComputationNode leafB = new ComputationNode(b);
+        ComputationNode leafC = new ComputationNode(new double[][]{{0, 0}, {0, 0}});
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            IncrementalEvaluation evaluation = engine.incremental(expression(new ComputationNode(a), leafB, leafC));
+            evaluation.evaluate();
+            long nodesBefore = evaluation.getRecomputedNodes();
+
+            evaluation.updateLeaf(leafC, new double[][]{{0, 0}, {0, 0}});
+            evaluation.evaluate();
+            if (evaluation.getRecomputedNodes() != nodesBefore)
+                throw new RuntimeException("Unchanged leaf triggered a recomputation");
+
+            double[][] updated = {{5, 6}, {7, 9}};
+            evaluation.updateLeaf(leafB, updated);
+            checkMatrixEquals(evaluation.evaluate(), fresh(expression(
+                    new ComputationNode(a), new ComputationNode(updated), new ComputationNode(new double[2][2]))));
+        }
+    }
+
+    @Test
+    void testShapeChangeRejected() {
+        ComputationNode leaf = new ComputationNode(new double[][]{{1, 2}});
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(1, true)) {
+            IncrementalEvaluation evaluation = engine.incremental(
+                    new ComputationNode(ComputationNodeType.NEGATE, List.of(leaf)));
+            boolean exceptionThrown = false;
+            try {
+                evaluation.updateLeaf(leaf, new double[][]{{1, 2, 3}});
+            } catch (IllegalArgumentException e) {
+                exceptionThrown = true;
+            }
+            if (!exceptionThrown)
+                throw new RuntimeException("Expected IllegalArgumentException for a reshaped leaf");
+        }
+    }
+}
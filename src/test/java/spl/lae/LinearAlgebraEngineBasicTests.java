@@ -2,9 +2,16 @@ package spl.lae;
 
 import org.junit.jupiter.api.Test;
 import parser.*;
+import scheduling.TiredExecutor;
 import scheduling.TiredThread;
 import memory.*;
 
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
 
 public class LinearAlgebraEngineBasicTests {
@@ -175,6 +182,31 @@ public class LinearAlgebraEngineBasicTests {
             throw new RuntimeException("Expected dimension mismatch exception for ADD");
     }
 
+    @Test
+    void testResultLargerThanHeapRejectedUpFront() {
+        LinearAlgebraEngine lae = new LinearAlgebraEngine(2);
+
+        // column times row: the 200000 x 200000 product needs 320 GB
+        double[][] column = new double[200_000][1];
+        double[][] row = new double[1][200_000];
+        ComputationNode product =
+                binaryNode(ComputationNodeType.MULTIPLY,
+                           matrixNode(column),
+                           matrixNode(row));
+
+        boolean exceptionThrown = false;
+        try {
+            lae.run(product);
+        } catch (IllegalArgumentException e) {
+            exceptionThrown = true;
+        }
+
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected a result larger than the heap to be rejected");
+        if (product.getNodeType() != ComputationNodeType.MULTIPLY)
+            throw new RuntimeException("Nothing should be computed for a rejected tree");
+    }
+
     @Test
     void testNullRoot() {
         LinearAlgebraEngine lae = new LinearAlgebraEngine(1);
@@ -303,4 +335,278 @@ public class LinearAlgebraEngineBasicTests {
         double[][] expected = {{12}};
         assertMatrixEquals(result.getMatrix(), expected);
     }
+
+    @Test
+    void testPersistentEngineRunsManyTrees() {
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            for (int i = 1; i <= 5; i++) {
+                double[][] mat = {{i, -i}};
+                ComputationNode result = engine.run(unaryNode(ComputationNodeType.NEGATE, matrixNode(mat)));
+                assertMatrixEquals(result.getMatrix(), new double[][]{{-i, i}});
+            }
+            if (engine.isClosed())
+                throw new RuntimeException("Persistent engine closed after run");
+        }
+    }
+
+    @Test
+    void testSingleShotEngineRejectsSecondRun() {
+        LinearAlgebraEngine engine = new LinearAlgebraEngine(1);
+        engine.run(matrixNode(new double[][]{{1.0}}));
+
+        boolean exceptionThrown = false;
+        try {
+            engine.run(matrixNode(new double[][]{{1.0}}));
+        } catch (IllegalStateException e) {
+            exceptionThrown = true;
+        }
+
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected IllegalStateException for run after close");
+    }
+
+    @Test
+    void testSharedExecutorSurvivesEngineClose() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+
+        LinearAlgebraEngine first = new LinearAlgebraEngine(executor);
+        first.run(unaryNode(ComputationNodeType.NEGATE, matrixNode(new double[][]{{1.0}})));
+        first.close();
+
+        LinearAlgebraEngine second = new LinearAlgebraEngine(executor);
+        ComputationNode result = second.run(
+                binaryNode(ComputationNodeType.ADD, matrixNode(new double[][]{{1.0}}), matrixNode(new double[][]{{2.0}})));
+        second.close();
+
+        assertMatrixEquals(result.getMatrix(), new double[][]{{3.0}});
+        executor.shutdown();
+    }
+    @Test
+    void testConcurrentRunsShareOneEngine() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(3);
+        LinearAlgebraEngine engine = new LinearAlgebraEngine(executor);
+        List<Thread> callers = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 1; t <= 8; t++) {
+            double k = t;
+            callers.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20; i++) {
+                        ComputationNode root = binaryNode(ComputationNodeType.MULTIPLY,
+                                binaryNode(ComputationNodeType.ADD,
+                                        matrixNode(new double[][]{{k, 0}, {0, k}}),
+                                        matrixNode(new double[][]{{1, 1}, {1, 1}})),
+                                matrixNode(new double[][]{{1}, {2}}));
+                        assertMatrixEquals(engine.run(root).getMatrix(), new double[][]{{k + 3}, {2 * k + 3}});
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+        for (Thread caller : callers)
+            caller.start();
+        for (Thread caller : callers)
+            caller.join();
+        engine.close();
+        executor.shutdown();
+
+        if (!failures.isEmpty())
+            throw new RuntimeException("Concurrent run failed: " + failures.get(0));
+    }
+
+    @Test
+    void testPowerMatchesRepeatedMultiply() {
+        double[][] a = {{1, 1}, {1, 0}};
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            ComputationNode power = engine.run(new ComputationNode(
+                    ComputationNodeType.POWER, List.of(matrixNode(a)), 10));
+            // Fibonacci: [[F11, F10], [F10, F9]]
+            assertMatrixEquals(power.getMatrix(), new double[][]{{89, 55}, {55, 34}});
+
+            ComputationNode identity = engine.run(new ComputationNode(
+                    ComputationNodeType.POWER, List.of(matrixNode(a)), 0));
+            assertMatrixEquals(identity.getMatrix(), new double[][]{{1, 0}, {0, 1}});
+        }
+    }
+
+    @Test
+    void testPowerOfOneCopiesItsOperand() {
+        double[][] a = {{1, 2}, {3, 4}};
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(1, true)) {
+            double[][] result = engine.run(new ComputationNode(
+                    ComputationNodeType.POWER, List.of(matrixNode(a)), 1)).getMatrix();
+            assertMatrixEquals(result, a);
+            result[0][0] = 100;
+            if (a[0][0] != 1)
+                throw new RuntimeException("POWER 1 result aliases its operand");
+        }
+    }
+
+    @Test
+    void testPowerWithoutExponentRejected() {
+        for (Runnable create : List.<Runnable>of(
+                () -> new ComputationNode("^", List.of(matrixNode(new double[][]{{1}}))),
+                () -> new ComputationNode(ComputationNodeType.POWER, List.of(matrixNode(new double[][]{{1}}))))) {
+            boolean exceptionThrown = false;
+            try {
+                create.run();
+            } catch (IllegalArgumentException e) {
+                exceptionThrown = true;
+            }
+            if (!exceptionThrown)
+                throw new RuntimeException("Expected IllegalArgumentException for POWER without an exponent");
+        }
+    }
+
+    @Test
+    void testPowerParsedFromJson() throws Exception {
+        ComputationNode root = new InputParser().parse(
+                "{\"operator\": \"^\", \"exponent\": 3, \"operands\": [[[2, 0], [0, 3]]]}".getBytes());
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(1, true)) {
+            assertMatrixEquals(engine.run(root).getMatrix(), new double[][]{{8, 0}, {0, 27}});
+        }
+
+        boolean exceptionThrown = false;
+        try {
+            new InputParser().parse("{\"operator\": \"^\", \"operands\": [[[1]]]}".getBytes());
+        } catch (ParseException e) {
+            exceptionThrown = true;
+        }
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected ParseException for a missing exponent");
+    }
+
+    @Test
+    void testRowsPerTaskGroupsRows() {
+        double[][] a = {{1}, {2}, {3}, {4}, {5}};
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            engine.setRowsPerTask(2);
+            Workspace workspace = new Workspace();
+            workspace.getLeftMatrix().loadRowMajor(a);
+            if (engine.createNegateTasks(workspace).size() != 3)
+                throw new RuntimeException("Expected 5 rows in 3 tasks");
+
+            ComputationNode result = engine.run(unaryNode(ComputationNodeType.NEGATE, matrixNode(a)));
+            assertMatrixEquals(result.getMatrix(), new double[][]{{-1}, {-2}, {-3}, {-4}, {-5}});
+        }
+
+        boolean exceptionThrown = false;
+        try {
+            new LinearAlgebraEngine(1).setRowsPerTask(0);
+        } catch (IllegalArgumentException e) {
+            exceptionThrown = true;
+        }
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected IllegalArgumentException for rowsPerTask 0");
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testNoArgumentTaskFactoriesPointToWorkspaceVersions() {
+        LinearAlgebraEngine engine = new LinearAlgebraEngine(1);
+        engine.run(binaryNode(ComputationNodeType.ADD, matrixNode(new double[][]{{1}}), matrixNode(new double[][]{{2}})));
+
+        String message = null;
+        try {
+            engine.createAddTasks();
+        } catch (UnsupportedOperationException e) {
+            message = e.getMessage();
+        }
+        if (message == null || !message.contains("createAddTasks(Workspace)"))
+            throw new RuntimeException("Expected the removed factory to point to createAddTasks(Workspace), got " + message);
+
+        Workspace workspace = new Workspace();
+        workspace.getLeftMatrix().loadRowMajor(new double[][]{{1, 2}, {3, 4}});
+        workspace.getRightMatrix().loadRowMajor(new double[][]{{10, 20}, {30, 40}});
+        for (Runnable task : engine.createAddTasks(workspace))
+            task.run();
+        assertMatrixEquals(workspace.getLeftMatrix().readRowMajor(), new double[][]{{11, 22}, {33, 44}});
+    }
+
+    @Test
+    void testLockInstrumentationReport() {
+        double[][] a = {{1, 2}, {3, 4}};
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            engine.run(binaryNode(ComputationNodeType.ADD, matrixNode(a), matrixNode(a)));
+            if (!engine.getLockReport().isEmpty() || engine.getLeftLockStats().getAcquisitions() != 0)
+                throw new RuntimeException("Locks must not be counted unless instrumentation is on");
+
+            engine.setLockInstrumentation(true);
+            engine.run(binaryNode(ComputationNodeType.MULTIPLY, matrixNode(a), matrixNode(a)));
+            if (engine.getLeftLockStats().getAcquisitions() == 0 || engine.getRightLockStats().getAcquisitions() == 0)
+                throw new RuntimeException("Expected counted lock acquisitions on both operands");
+            if (!engine.getWorkerReport().contains("Right operand locks: acquisitions: "))
+                throw new RuntimeException("Lock counters missing from the engine report");
+        }
+    }
+
+    @Test
+    void testAllocationsAreChargedToNodeTypes() {
+        int n = 64;
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++)
+            a[i][i] = 1;
+        AllocationStats allocations = new AllocationStats();
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            engine.setAllocationStats(allocations);
+            engine.run(unaryNode(ComputationNodeType.NEGATE,
+                    binaryNode(ComputationNodeType.MULTIPLY, matrixNode(a), matrixNode(a))));
+        }
+        long resultBytes = (long) n * n * Double.BYTES;
+        if (allocations.getNodes(ComputationNodeType.MULTIPLY) != 1 || allocations.getNodes(ComputationNodeType.NEGATE) != 1)
+            throw new RuntimeException("Expected one node of each type");
+        // Loading, per-row products and readback each copy the matrix at least once.
+        if (allocations.getBytes(ComputationNodeType.MULTIPLY) < 3 * resultBytes)
+            throw new RuntimeException("MULTIPLY allocations too low: " + allocations.getBytes(ComputationNodeType.MULTIPLY));
+        if (allocations.getTotalBytes() != allocations.getBytes(ComputationNodeType.MULTIPLY)
+                + allocations.getBytes(ComputationNodeType.NEGATE))
+            throw new RuntimeException("Total must be the sum over node types");
+        if (!allocations.getReport().contains("Allocated by MULTIPLY: 1 nodes"))
+            throw new RuntimeException("Unexpected report: " + allocations.getReport());
+    }
+
+    @Test
+    void testAllocationsOnVirtualThreadsReportedIncomplete() throws Exception {
+        AllocationStats allocations = new AllocationStats();
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(1)) {
+            engine.setAllocationStats(allocations);
+            Thread.ofVirtual().start(() -> engine.run(unaryNode(ComputationNodeType.NEGATE, matrixNode(new double[][]{{1, 2}})))).join();
+        }
+        if (allocations.getNodes(ComputationNodeType.NEGATE) != 1 || allocations.getPartialNodes(ComputationNodeType.NEGATE) != 1)
+            throw new RuntimeException("Expected one partially counted NEGATE node");
+        if (!allocations.getReport().contains("Incomplete: 1 nodes ran on virtual threads"))
+            throw new RuntimeException("Report must flag the partial node: " + allocations.getReport());
+    }
+
+    @Test
+    void testEngineMBeanCountersAndKnobs() throws Exception {
+        TiredExecutor executor = new TiredExecutor(2);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(executor)) {
+            ObjectName name = EngineMonitor.register(engine, "engine-test");
+            try {
+                double[][] a = {{1, 2}, {3, 4}};
+                engine.run(binaryNode(ComputationNodeType.MULTIPLY, matrixNode(a), matrixNode(a)));
+
+                if ((Long) server.getAttribute(name, "NodesResolved") != 1)
+                    throw new RuntimeException("Expected one resolved node");
+                if ((Long) server.getAttribute(name, "FlopsExecuted") != 2L * 2 * 2 * 2)
+                    throw new RuntimeException("Wrong FLOP count");
+                if ((Long) server.getAttribute(name, "BytesMaterialized") != 4L * Double.BYTES)
+                    throw new RuntimeException("Wrong materialized bytes");
+
+                server.setAttribute(name, new Attribute("RowsPerTask", 8));
+                server.setAttribute(name, new Attribute("StrassenThreshold", 64));
+                if (engine.getRowsPerTask() != 8 || engine.getStrassen().getThreshold() != 64)
+                    throw new RuntimeException("Knobs were not applied to the engine");
+            } finally {
+                server.unregisterMBean(name);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
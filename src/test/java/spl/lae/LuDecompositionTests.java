@@ -0,0 +1,103 @@
+package spl.lae;
+
+import org.junit.jupiter.api.Test;
+import parser.*;
+import scheduling.TiredExecutor;
+
+import java.util.List;
+import java.util.Random;
+
+public class LuDecompositionTests {
+
+    private void assertMatrixEquals(double[][] actual, double[][] expected, double tolerance) {
+        if (actual.length != expected.length)
+            throw new RuntimeException("Row count mismatch");
+        for (int i = 0; i < actual.length; i++) {
+            if (actual[i].length != expected[i].length)
+                throw new RuntimeException("Column count mismatch at row " + i);
+            for (int j = 0; j < actual[i].length; j++) {
+                if (Math.abs(actual[i][j] - expected[i][j]) > tolerance)
+                    throw new RuntimeException("Value mismatch at [" + i + "," + j + "]: "
+                            + actual[i][j] + " vs " + expected[i][j]);
+            }
+        }
+    }
+
+    private double[][] multiply(double[][] a, double[][] b) {
+        double[][] c = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++)
+            for (int k = 0; k < b.length; k++)
+                for (int j = 0; j < b[0].length; j++)
+                    c[i][j] += a[i][k] * b[k][j];
+        return c;
+    }
+
+    @Test
+    void testSolveNeedsPivoting() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+        double[][] a = {{0, 2, 1}, {1, 1, 0}, {3, 0, 1}};
+        double[][] b = {{5}, {3}, {4}};
+
+        double[][] x = LuDecomposition.factor(a, executor, 2).solve(b);
+        executor.shutdown();
+
+        assertMatrixEquals(x, new double[][]{{1}, {2}, {1}}, 1e-12);
+    }
+
+    @Test
+    void testBlockedInverseOfRandomMatrix() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(4);
+        Random random = new Random(39);
+        int n = 70;
+        double[][] a = new double[n][n];
+        double[][] identity = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            identity[i][i] = 1;
+            for (int j = 0; j < n; j++)
+                a[i][j] = random.nextDouble() - 0.5;
+        }
+
+        double[][] inverse = LuDecomposition.factor(a, executor, 16).inverse();
+        executor.shutdown();
+
+        assertMatrixEquals(multiply(a, inverse), identity, 1e-9);
+    }
+
+    @Test
+    void testSingularMatrixRejected() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        boolean exceptionThrown = false;
+        try {
+            LuDecomposition.factor(new double[][]{{1, 2}, {2, 4}}, executor, 8);
+        } catch (IllegalArgumentException e) {
+            exceptionThrown = true;
+        }
+        executor.shutdown();
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected IllegalArgumentException for a singular matrix");
+    }
+
+    @Test
+    void testSolveAndInverseOperators() throws Exception {
+        ComputationNode root = new InputParser().parse(
+                ("{\"operator\": \"*\", \"operands\": ["
+                        + "{\"operator\": \"inv\", \"operands\": [[[4, 7], [2, 6]]]},"
+                        + "{\"operator\": \"solve\", \"operands\": [[[2, 0], [0, 4]], [[2, 4], [8, 4]]]}]}").getBytes());
+
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            double[][] result = engine.run(root).getMatrix();
+            // inv = [[0.6, -0.7], [-0.2, 0.4]], solve = [[1, 2], [2, 1]]
+            assertMatrixEquals(result, new double[][]{{-0.8, 0.5}, {0.6, 0}}, 1e-12);
+        }
+
+        boolean exceptionThrown = false;
+        try {
+            new ShapeInference().infer(new ComputationNode(ComputationNodeType.SOLVE,
+                    List.of(new ComputationNode(new double[2][2]), new ComputationNode(new double[3][1]))));
+        } catch (IllegalArgumentException e) {
+            exceptionThrown = true;
+        }
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected IllegalArgumentException for mismatched SOLVE operands");
+    }
+}
@@ -0,0 +1,72 @@
+package spl.lae;
+
+import org.junit.jupiter.api.Test;
+import parser.*;
+import scheduling.TiredExecutor;
+
+import java.util.List;
+
+public class ResultCacheTests {
+
+    private ComputationNode product(double[][] left, double[][] right) {
+        return new ComputationNode(ComputationNodeType.MULTIPLY,
+                List.of(new ComputationNode(left), new ComputationNode(right)));
+    }
+
+    @Test
+    void testEqualSubtreesHaveEqualKeys() {
+        double[][] a = {{1, 2}, {3, 4}};
+        String first = new SubtreeKeys().compute(product(a, a));
+        String second = new SubtreeKeys().compute(product(new double[][]{{1, 2}, {3, 4}}, a));
+        String other = new SubtreeKeys().compute(product(a, new double[][]{{1, 2}, {3, 5}}));
+
+        if (!first.equals(second))
+            throw new RuntimeException("Structurally equal trees got different keys");
+        if (first.equals(other))
+            throw new RuntimeException("Different operands got the same key");
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvictedFirst() {
+        double[][] m = new double[4][4];
+        long entry = ResultCache.sizeOf(m);
+        ResultCache cache = new ResultCache(2 * entry);
+        cache.put("a", m);
+        cache.put("b", m);
+        cache.get("a");
+        cache.put("c", m);
+
+        if (!cache.contains("a") || cache.contains("b") || !cache.contains("c"))
+            throw new RuntimeException("Expected b to be evicted");
+        if (cache.getEvictions() != 1 || cache.getBytes() != 2 * entry)
+            throw new RuntimeException("Wrong eviction accounting");
+
+        cache.put("huge", new double[64][64]);
+        if (cache.contains("huge"))
+            throw new RuntimeException("Entry larger than the budget was cached");
+    }
+
+    @Test
+    void testRepeatedSubtreeServedFromCache() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+        ResultCache cache = new ResultCache(1 << 20);
+        LinearAlgebraEngine engine = new LinearAlgebraEngine(executor, cache);
+        double[][] model = {{1, 2}, {3, 4}};
+
+        engine.run(new ComputationNode(ComputationNodeType.NEGATE,
+                List.of(product(model, new double[][]{{1, 0}, {0, 1}}))));
+        long missesAfterFirst = cache.getMisses();
+        ComputationNode result = engine.run(new ComputationNode(ComputationNodeType.ADD,
+                List.of(product(model, new double[][]{{1, 0}, {0, 1}}), new ComputationNode(new double[][]{{1, 1}, {1, 1}}))));
+
+        engine.close();
+        executor.shutdown();
+        if (cache.getHits() != 1 || cache.getMisses() != missesAfterFirst + 1)
+            throw new RuntimeException("Expected the shared product to hit the cache");
+        double[][] expected = {{2, 3}, {4, 5}};
+        for (int i = 0; i < 2; i++)
+            for (int j = 0; j < 2; j++)
+                if (result.getMatrix()[i][j] != expected[i][j])
+                    throw new RuntimeException("Wrong cached result at [" + i + "," + j + "]");
+    }
+}
@@ -0,0 +1,123 @@
+package spl.lae;
+
+import org.junit.jupiter.api.Test;
+import parser.*;
+
+import java.util.List;
+
+public class ShapeInferenceTests {
+
+    private ComputationNode matrixNode(int rows, int cols) {
+        return new ComputationNode(new double[rows][cols]);
+    }
+
+    @Test
+    void testMultiplyShapeAndFlops() {
+        ComputationNode root = new ComputationNode(
+                ComputationNodeType.MULTIPLY,
+                List.of(matrixNode(2, 3), matrixNode(3, 4))
+        );
+
+        ShapeInference inference = new ShapeInference();
+        NodeShape shape = inference.infer(root);
+
+        if (shape.getRows() != 2 || shape.getCols() != 4)
+            throw new RuntimeException("Wrong MULTIPLY shape: " + shape);
+        if (inference.getTotalFlops() != 2L * 2 * 3 * 4)
+            throw new RuntimeException("Wrong MULTIPLY flops: " + inference.getTotalFlops());
+        if (inference.getIntermediateBytes() != 2L * 4 * Double.BYTES)
+            throw new RuntimeException("Wrong intermediate buffer size");
+    }
+
+    @Test
+    void testNestedShapes() {
+        ComputationNode transpose = new ComputationNode(
+                ComputationNodeType.TRANSPOSE,
+                List.of(matrixNode(3, 2))
+        );
+        ComputationNode root = new ComputationNode(
+                ComputationNodeType.ADD,
+                List.of(transpose, matrixNode(2, 3), matrixNode(2, 3))
+        );
+
+        ShapeInference inference = new ShapeInference();
+        inference.infer(root);
+
+        NodeShape t = inference.shapeOf(transpose);
+        if (t.getRows() != 2 || t.getCols() != 3)
+            throw new RuntimeException("Wrong TRANSPOSE shape: " + t);
+        if (inference.shapeOf(root).getFlops() != 2L * 2 * 3)
+            throw new RuntimeException("Wrong ADD flops");
+    }
+
+    @Test
+    void testMismatchRejectedBeforeComputation() {
+        LinearAlgebraEngine engine = new LinearAlgebraEngine(1);
+
+        ComputationNode negate = new ComputationNode(
+                ComputationNodeType.NEGATE,
+                List.of(matrixNode(2, 2))
+        );
+        ComputationNode bad = new ComputationNode(
+                ComputationNodeType.MULTIPLY,
+                List.of(matrixNode(2, 3), matrixNode(2, 3))
+        );
+        ComputationNode root = new ComputationNode(
+                ComputationNodeType.ADD,
+                List.of(negate, bad)
+        );
+
+        boolean exceptionThrown = false;
+        try {
+            engine.run(root);
+        } catch (IllegalArgumentException e) {
+            exceptionThrown = true;
+        }
+
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected dimension mismatch exception");
+        if (negate.getNodeType() != ComputationNodeType.NEGATE)
+            throw new RuntimeException("Valid subtree was computed before validation");
+    }
+
+    @Test
+    void testRaggedMatrixRejected() {
+        ComputationNode root = new ComputationNode(
+                ComputationNodeType.NEGATE,
+                List.of(new ComputationNode(new double[][]{{1, 2}, {3}}))
+        );
+
+        boolean exceptionThrown = false;
+        try {
+            new ShapeInference().infer(root);
+        } catch (IllegalArgumentException e) {
+            exceptionThrown = true;
+        }
+
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected exception for ragged matrix");
+    }
+
+    @Test
+    void testPowerCountsSquaringProducts() {
+        ComputationNode root = new ComputationNode(
+                ComputationNodeType.POWER, List.of(matrixNode(3, 3)), 13);
+
+        ShapeInference inference = new ShapeInference();
+        inference.infer(root);
+
+        // 13 = 1101b: three squarings and two extra products
+        if (inference.getTotalFlops() != 5L * 2 * 3 * 3 * 3)
+            throw new RuntimeException("Wrong POWER flops: " + inference.getTotalFlops());
+
+        boolean exceptionThrown = false;
+        try {
+            new ShapeInference().infer(new ComputationNode(
+                    ComputationNodeType.POWER, List.of(matrixNode(2, 3)), 2));
+        } catch (IllegalArgumentException e) {
+            exceptionThrown = true;
+        }
+        if (!exceptionThrown)
+            throw new RuntimeException("Expected IllegalArgumentException for a non-square POWER");
+    }
+}
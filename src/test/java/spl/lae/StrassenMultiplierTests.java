@@ -0,0 +1,91 @@
+package spl.lae;
+
+import org.junit.jupiter.api.Test;
+import parser.*;
+import scheduling.TiredExecutor;
+
+import java.util.List;
+import java.util.Random;
+
+public class StrassenMultiplierTests {
+
+    private double[][] random(int n, long seed) {
+        Random random = new Random(seed);
+        double[][] m = new double[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                m[i][j] = random.nextInt(21) - 10;
+        return m;
+    }
+
+    private double[][] naive(double[][] a, double[][] b) {
+        int n = a.length;
+        double[][] c = new double[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                for (int k = 0; k < n; k++)
+                    c[i][j] += a[i][k] * b[k][j];
+        return c;
+    }
+
+    private void assertMatrixEquals(double[][] actual, double[][] expected) {
+        if (actual.length != expected.length)
+            throw new RuntimeException("Row count mismatch");
+        for (int i = 0; i < actual.length; i++) {
+            if (actual[i].length != expected[i].length)
+                throw new RuntimeException("Column count mismatch at row " + i);
+            for (int j = 0; j < actual[i].length; j++) {
+                if (Math.abs(actual[i][j] - expected[i][j]) > 1e-9)
+                    throw new RuntimeException("Value mismatch at [" + i + "," + j + "]");
+            }
+        }
+    }
+
+    @Test
+    void testOddSizeMatchesNaiveProduct() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(3);
+        StrassenMultiplier strassen = new StrassenMultiplier(executor);
+        strassen.setThreshold(8);
+        strassen.setMaxDepth(3);
+        double[][] a = random(37, 1);
+        double[][] b = random(37, 2);
+
+        if (!strassen.applies(a, b) || strassen.depthFor(37) != 3)
+            throw new RuntimeException("Expected a three-level Strassen product");
+        double[][] c = strassen.multiply(a, b);
+        executor.shutdown();
+
+        assertMatrixEquals(c, naive(a, b));
+    }
+
+    @Test
+    void testDepthCappedAndSmallOrNonSquareSkipped() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        StrassenMultiplier strassen = new StrassenMultiplier(executor);
+        strassen.setThreshold(4);
+        strassen.setMaxDepth(1);
+        executor.shutdown();
+
+        if (strassen.depthFor(64) != 1)
+            throw new RuntimeException("maxDepth not respected");
+        if (strassen.applies(new double[2][2], new double[2][2]))
+            throw new RuntimeException("Product below the threshold used Strassen");
+        if (strassen.applies(new double[4][4], new double[4][5]))
+            throw new RuntimeException("Non-square product used Strassen");
+        strassen.setMaxDepth(0);
+        if (strassen.applies(new double[8][8], new double[8][8]))
+            throw new RuntimeException("maxDepth 0 must disable Strassen");
+    }
+
+    @Test
+    void testEngineUsesStrassenAboveThreshold() {
+        double[][] a = random(20, 3);
+        double[][] b = random(20, 4);
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            engine.getStrassen().setThreshold(16);
+            ComputationNode result = engine.run(new ComputationNode(ComputationNodeType.MULTIPLY,
+                    List.of(new ComputationNode(a), new ComputationNode(b))));
+            assertMatrixEquals(result.getMatrix(), naive(a, b));
+        }
+    }
+}